@@ -0,0 +1,83 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Overhead of a procAsync fan-out over no-op suppliers, against running them on the calling thread
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcAsyncBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int tasks;
+
+    @Param({"POOL", "WORK_STEALING"})
+    private ExecutionBackend backend;
+
+    private List<Supplier<Integer>> suppliers;
+
+    private ProcOptions options;
+
+    private ProcOptions orderedOptions;
+
+    private ProcOptions profiledOptions;
+
+    private volatile ProcProfile profile;
+
+    @Setup
+    public void setUp() {
+        suppliers = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            Integer value = i;
+            suppliers.add(() -> value);
+        }
+        options = ProcOptions.builder().backend(backend).build();
+        orderedOptions = ProcOptions.builder().backend(backend).ordered(true).build();
+        profiledOptions = ProcOptions.builder().backend(backend).listener(p -> profile = p).build();
+    }
+
+    @Benchmark
+    public Collection<Integer> procAsync() {
+        return ParallelTaskProcessor.procAsync(suppliers, false, options);
+    }
+
+    @Benchmark
+    public Collection<Integer> procAsyncOrdered() {
+        return ParallelTaskProcessor.procAsync(suppliers, false, orderedOptions);
+    }
+
+    @Benchmark
+    public Collection<Integer> procAsyncProfiled() {
+        return ParallelTaskProcessor.procAsync(suppliers, false, profiledOptions);
+    }
+
+    @Benchmark
+    public Collection<Integer> sequential() {
+        List<Integer> results = new ArrayList<>(tasks);
+        for (Supplier<Integer> supplier : suppliers) {
+            results.add(supplier.get());
+        }
+        return results;
+    }
+}
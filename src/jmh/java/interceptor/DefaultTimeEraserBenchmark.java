@@ -0,0 +1,109 @@
+package interceptor;
+
+import annotation.EraseDefaultTime;
+import annotation.EraseTarget;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.plugin.Invocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拦截器处理整个结果集的耗时，与手写的逐行判断对比
+ * 每次调用前重置一半行的默认时间，擦除逻辑每次都真正执行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DefaultTimeEraserBenchmark {
+
+    private static final long DEFAULT_TIME_MILLIS = LocalDateTime.of(1970, 1, 1, 0, 0)
+            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private final DefaultTimeEraser eraser = new DefaultTimeEraser();
+
+    private List<Object> resultSet;
+
+    private Invocation invocation;
+
+    private Date defaultDate;
+
+    private Date now;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws NoSuchMethodException {
+        defaultDate = new Date(DEFAULT_TIME_MILLIS);
+        now = new Date();
+        resultSet = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            resultSet.add(new Row());
+        }
+        Method method = ResultSetHandler.class.getMethod("handleResultSets", Statement.class);
+        invocation = new Invocation(new StubResultSetHandler(resultSet), method, new Object[]{null});
+    }
+
+    @Setup(Level.Invocation)
+    public void resetRows() {
+        for (int i = 0; i < rows; i++) {
+            Row row = (Row) resultSet.get(i);
+            row.payTime = (i & 1) == 0 ? defaultDate : now;
+            row.finishTime = defaultDate;
+        }
+    }
+
+    @Benchmark
+    public Object intercept() throws Throwable {
+        return eraser.intercept(invocation);
+    }
+
+    @Benchmark
+    public Object handwritten() {
+        for (Object data : resultSet) {
+            Row row = (Row) data;
+            if (null != row.payTime && row.payTime.getTime() == DEFAULT_TIME_MILLIS) {
+                row.payTime = null;
+            }
+            if (null != row.finishTime && row.finishTime.getTime() == DEFAULT_TIME_MILLIS) {
+                row.finishTime = null;
+            }
+        }
+        return resultSet;
+    }
+
+    @EraseTarget
+    public static class Row {
+        private Long id = 1L;
+
+        private String orderNo = "N0001";
+
+        @EraseDefaultTime
+        private Date payTime;
+
+        @EraseDefaultTime
+        private Date finishTime;
+    }
+}
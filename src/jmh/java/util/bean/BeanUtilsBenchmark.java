@@ -0,0 +1,101 @@
+package util.bean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个对象复制的耗时，与手写的 getter/setter 复制对比
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanUtilsBenchmark {
+
+    private static final String FIELDS = "id,name,amount,createTime";
+
+    private Item src;
+
+    @Setup
+    public void setUp() {
+        src = new Item();
+        src.setId(1L);
+        src.setName("item");
+        src.setCode("I0001");
+        src.setAmount(100);
+        src.setStock(20);
+        src.setPrice(9.9D);
+        src.setCreateTime(new Date());
+        src.setUpdateTime(new Date());
+    }
+
+    @Benchmark
+    public Item copy() {
+        Item target = new Item();
+        BeanUtils.copy(src, target);
+        return target;
+    }
+
+    @Benchmark
+    public Item copyWithFields() {
+        Item target = new Item();
+        BeanUtils.copyWithFields(src, target, FIELDS);
+        return target;
+    }
+
+    @Benchmark
+    public Item copyWithoutFields() {
+        Item target = new Item();
+        BeanUtils.copyWithoutFields(src, target, FIELDS);
+        return target;
+    }
+
+    @Benchmark
+    public Item handwritten() {
+        Item target = new Item();
+        target.setId(src.getId());
+        target.setName(src.getName());
+        target.setCode(src.getCode());
+        target.setAmount(src.getAmount());
+        target.setStock(src.getStock());
+        target.setPrice(src.getPrice());
+        target.setCreateTime(src.getCreateTime());
+        target.setUpdateTime(src.getUpdateTime());
+        return target;
+    }
+
+    @Benchmark
+    public Item handwrittenWithFields() {
+        Item target = new Item();
+        target.setId(src.getId());
+        target.setName(src.getName());
+        target.setAmount(src.getAmount());
+        target.setCreateTime(src.getCreateTime());
+        return target;
+    }
+
+    @lombok.Data
+    public static class Item {
+        private Long id;
+        private String name;
+        private String code;
+        private Integer amount;
+        private Integer stock;
+        private Double price;
+        private Date createTime;
+        private Date updateTime;
+    }
+}
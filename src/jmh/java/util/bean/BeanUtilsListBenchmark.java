@@ -0,0 +1,69 @@
+package util.bean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列表复制的耗时，逐个调用 copy 与批量复制对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanUtilsListBenchmark {
+
+    @Param({"10000", "500000"})
+    private int size;
+
+    private List<BeanUtilsBenchmark.Item> items;
+
+    @Setup
+    public void setUp() {
+        items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BeanUtilsBenchmark.Item item = new BeanUtilsBenchmark.Item();
+            item.setId((long) i);
+            item.setName("item");
+            item.setAmount(i);
+            item.setCreateTime(new Date());
+            items.add(item);
+        }
+    }
+
+    @Benchmark
+    public List<BeanUtilsBenchmark.Item> loopCopy() {
+        List<BeanUtilsBenchmark.Item> targets = new ArrayList<>();
+        for (BeanUtilsBenchmark.Item item : items) {
+            BeanUtilsBenchmark.Item target = new BeanUtilsBenchmark.Item();
+            BeanUtils.copy(item, target);
+            targets.add(target);
+        }
+        return targets;
+    }
+
+    @Benchmark
+    public List<BeanUtilsBenchmark.Item> copyList() {
+        return BeanUtils.copyList(items, BeanUtilsBenchmark.Item::new);
+    }
+
+    @Benchmark
+    public List<BeanUtilsBenchmark.Item> copyListParallel() {
+        return BeanUtils.copyList(items, BeanUtilsBenchmark.Item::new, true);
+    }
+}
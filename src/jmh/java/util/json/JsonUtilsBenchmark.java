@@ -0,0 +1,68 @@
+package util.json;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import util.bean.BeanUtilsBenchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大数组的反序列化，先解码为字符串再解析与直接解析字节对比，以及逐个读取元素
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonUtilsBenchmark {
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        List<BeanUtilsBenchmark.Item> items = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            BeanUtilsBenchmark.Item item = new BeanUtilsBenchmark.Item();
+            item.setId((long) i);
+            item.setName("item" + i);
+            item.setAmount(i);
+            item.setCreateTime(new Date());
+            items.add(item);
+        }
+        json = JsonUtils.toJson(items).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public BeanUtilsBenchmark.Item[] fromString() {
+        return JsonUtils.fromJson(new String(json, StandardCharsets.UTF_8), BeanUtilsBenchmark.Item[].class);
+    }
+
+    @Benchmark
+    public BeanUtilsBenchmark.Item[] fromBytes() {
+        return JsonUtils.fromJson(json, BeanUtilsBenchmark.Item[].class);
+    }
+
+    @Benchmark
+    public void iterateStream(Blackhole blackhole) {
+        JsonArrayIterator<BeanUtilsBenchmark.Item> iterator =
+                JsonUtils.iterateArray(new ByteArrayInputStream(json), BeanUtilsBenchmark.Item.class);
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+}
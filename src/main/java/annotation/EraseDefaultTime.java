@@ -7,6 +7,7 @@ import java.lang.annotation.Target;
 
 /**
  * 加在数据库实体字段上，标记擦除默认时间
+ * 只对 Date 及其子类与 LocalDateTime 字段生效，其他类型的字段被忽略，需要时使用 @EraseSentinel
  *
  * @author cszxyang
  */
@@ -0,0 +1,16 @@
+package annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 加在数据库实体字段上，字段为嵌套实体、实体集合、数组或 Map 时，对其中被 @EraseTarget 标记的实体递归擦除
+ *
+ * @author cszxyang
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD})
+public @interface EraseNested {
+}
@@ -0,0 +1,26 @@
+package annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 加在数据库实体字段上，字段值等于任一哨兵值时擦除为 null
+ * 哨兵值按字段类型解析：
+ * Date、Timestamp、LocalDateTime 为 yyyy-MM-dd HH:mm:ss 格式的墙上时间，比较时与时区无关；
+ * LocalDate 为 yyyy-MM-dd；数值类型与字符串按字面值比较
+ * 未指定哨兵值时，日期时间默认 1970-01-01 00:00:00，日期默认 1970-01-01，数值默认 -1，字符串默认空串
+ * 字段须为引用类型，基本类型无法置空
+ *
+ * @author cszxyang
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD})
+public @interface EraseSentinel {
+
+    /**
+     * @return 哨兵值
+     */
+    String[] value() default {};
+}
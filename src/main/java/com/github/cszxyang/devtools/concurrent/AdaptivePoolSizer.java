@@ -0,0 +1,87 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically resizes a pool within the bounds of its {@link AdaptiveSizingPolicy}, from its metrics.
+ */
+class AdaptivePoolSizer implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+    private final VisualThreadPoolTaskExecutor executor;
+
+    private final AdaptiveSizingPolicy policy;
+
+    /**
+     * Max pool size configured before any growth, which shrinking restores
+     */
+    private final int configuredMaxPoolSize;
+
+    private long lastWaitCount;
+
+    private long lastWaitSum;
+
+    AdaptivePoolSizer(VisualThreadPoolTaskExecutor executor, AdaptiveSizingPolicy policy) {
+        if (policy.getMinCorePoolSize() <= 0 || policy.getMinCorePoolSize() > policy.getMaxCorePoolSize()) {
+            throw new IllegalArgumentException("invalid core pool size bounds: "
+                    + policy.getMinCorePoolSize() + ", " + policy.getMaxCorePoolSize());
+        }
+        this.executor = executor;
+        this.policy = policy;
+        this.configuredMaxPoolSize = executor.getMaxPoolSize();
+    }
+
+    @Override
+    public void run() {
+        try {
+            adjust();
+        } catch (RuntimeException e) {
+            // keep the schedule alive
+            logger.warn("Adaptive sizing of {} failed", executor.getThreadNamePrefix(), e);
+        }
+    }
+
+    private void adjust() {
+        ThreadPoolMetrics metrics = executor.getMetrics();
+        long waitCount = metrics.getQueueWait().getCount();
+        long waitSum = metrics.getQueueWait().getSumNanos();
+        long started = waitCount - lastWaitCount;
+        long meanWaitNanos = started == 0 ? 0 : (waitSum - lastWaitSum) / started;
+        lastWaitCount = waitCount;
+        lastWaitSum = waitSum;
+
+        int core = executor.getCorePoolSize();
+        int queued = metrics.getQueueSize();
+        double utilization = (double) metrics.getActiveCount() / core;
+        boolean waiting = meanWaitNanos > TimeUnit.MILLISECONDS.toNanos(policy.getTargetQueueWaitMillis())
+                || (started == 0 && queued > 0);
+        int target = core;
+        if (waiting && utilization >= policy.getHighUtilization()) {
+            target = Math.min(policy.getMaxCorePoolSize(), core + Math.max(1, core / 2));
+        } else if (queued == 0 && utilization < policy.getLowUtilization()) {
+            target = Math.max(policy.getMinCorePoolSize(), core - Math.max(1, core / 4));
+        }
+        target = Math.max(policy.getMinCorePoolSize(), Math.min(policy.getMaxCorePoolSize(), target));
+        if (target == core) {
+            return;
+        }
+        // the max size must never drop below the core size, so it is raised first and lowered last
+        if (target > executor.getMaxPoolSize()) {
+            executor.setMaxPoolSize(target);
+            executor.setCorePoolSize(target);
+        } else {
+            executor.setCorePoolSize(target);
+            int max = Math.max(configuredMaxPoolSize, target);
+            if (max < executor.getMaxPoolSize()) {
+                executor.setMaxPoolSize(max);
+            }
+        }
+        logger.info("{} resized core pool from {} to {}, meanQueueWait: {}us, utilization: {}, queueSize: {}",
+                executor.getThreadNamePrefix(), core, target, TimeUnit.NANOSECONDS.toMicros(meanWaitNanos),
+                String.format("%.2f", utilization), queued);
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Bounds and thresholds of the adaptive sizing of a {@link VisualThreadPoolTaskExecutor}.
+ * <p>
+ * A {@code ThreadPoolExecutor} only grows past its core size once its queue is full, so the controller
+ * moves the core size itself: it grows while tasks wait too long in the queue and the threads are busy,
+ * and shrinks while most threads are idle.
+ */
+@Getter
+@Builder
+public class AdaptiveSizingPolicy {
+
+    @Builder.Default
+    private final int minCorePoolSize = 4;
+
+    @Builder.Default
+    private final int maxCorePoolSize = 100;
+
+    /**
+     * Grow when the mean queue wait of the last interval exceeds this
+     */
+    @Builder.Default
+    private final long targetQueueWaitMillis = 20;
+
+    /**
+     * Grow only when at least this share of the core threads is busy, a queue wait behind idle threads
+     * is not a capacity problem
+     */
+    @Builder.Default
+    private final double highUtilization = 0.75;
+
+    /**
+     * Shrink when less than this share of the core threads is busy and nothing is queued
+     */
+    @Builder.Default
+    private final double lowUtilization = 0.25;
+
+    @Builder.Default
+    private final long intervalMillis = 1000;
+}
@@ -0,0 +1,184 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Submits suppliers so that completing their future early, by cancellation or timeout,
+ * interrupts the thread running them and gives it back to the executor.
+ */
+final class AsyncTasks {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncTasks.class);
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "parallel_supplier_timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private AsyncTasks() {
+    }
+
+    /**
+     * Run the supplier on the executor
+     *
+     * @param supplier method handle
+     * @param executor executor
+     * @param timeout  timeout of the task, null means no timeout
+     * @param <R>      result type
+     * @return a future whose cancellation interrupts the supplier
+     */
+    static <R> CompletableFuture<R> supplyAsync(Supplier<R> supplier, Executor executor, Duration timeout) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        InterruptibleTask<R> task = new InterruptibleTask<>(supplier, future);
+        future.whenComplete((r, t) -> {
+            if (Objects.nonNull(t)) {
+                task.cancel(true);
+            }
+        });
+        if (Objects.nonNull(timeout)) {
+            ScheduledFuture<?> timer = TIMER.schedule(() -> future.completeExceptionally(
+                    new TimeoutException("task timed out after " + timeout.toMillis() + " ms")),
+                    timeout.toNanos(), TimeUnit.NANOSECONDS);
+            future.whenComplete((r, t) -> timer.cancel(false));
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        if (task.runner == Thread.currentThread() && task.isCancelled()) {
+            // run by the caller and cancelled meanwhile, do not leak the interrupt to the caller
+            Thread.interrupted();
+        }
+        return future;
+    }
+
+    /**
+     * Wait for the futures as the policy says, cancelling the unfinished ones when giving up
+     *
+     * @param futures  futures of a call
+     * @param options  deadline and failure policy
+     * @param start    start of the call, in {@link System#nanoTime()}
+     * @param forkMark start of the call among the tasks forked by its thread, from
+     *                 {@link WorkStealingPools#forkMark()}
+     * @throws CompletionException if a task fails or the deadline passes, unless {@link ProcPolicy#BEST_EFFORT}
+     */
+    static void await(List<? extends CompletableFuture<?>> futures, ProcOptions options, long start,
+                      long forkMark) {
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        CompletableFuture<?> waiting = all;
+        if (options.getPolicy() == ProcPolicy.BEST_EFFORT) {
+            waiting = all.handle((v, t) -> null);
+        } else if (options.getPolicy() == ProcPolicy.FAIL_FAST) {
+            CompletableFuture<Void> failure = new CompletableFuture<>();
+            for (CompletableFuture<?> future : futures) {
+                future.whenComplete((r, t) -> {
+                    if (Objects.nonNull(t)) {
+                        failure.completeExceptionally(t);
+                    }
+                });
+            }
+            waiting = CompletableFuture.anyOf(all, failure);
+        }
+        // a nested fan-out on a work-stealing worker runs its own children rather than parking on them
+        WorkStealingPools.helpForked(forkMark, waiting, options.getDeadline(), start);
+        try {
+            if (Objects.isNull(options.getDeadline())) {
+                waiting.get();
+            } else {
+                long remaining = options.getDeadline().toNanos() - (System.nanoTime() - start);
+                waiting.get(remaining, TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            cancelAll(futures);
+            if (options.getPolicy() != ProcPolicy.BEST_EFFORT) {
+                throw new CompletionException(e);
+            }
+            logger.warn("Deadline of {} ms passed, returning partial results", options.getDeadline().toMillis());
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Cancel every future which has not completed yet
+     *
+     * @param futures futures
+     */
+    static void cancelAll(Iterable<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static class InterruptibleTask<R> extends FutureTask<R> implements SourcedTask, StampedTask {
+
+        private final Supplier<R> supplier;
+
+        private final CompletableFuture<R> future;
+
+        private final long submitNanos = System.nanoTime();
+
+        private volatile Thread runner;
+
+        InterruptibleTask(Supplier<R> supplier, CompletableFuture<R> future) {
+            super(supplier::get);
+            this.supplier = supplier;
+            this.future = future;
+        }
+
+        @Override
+        public Object getSource() {
+            return supplier instanceof SourcedTask ? ((SourcedTask) supplier).getSource() : supplier;
+        }
+
+        @Override
+        public long getSubmitNanos() {
+            return submitNanos;
+        }
+
+        @Override
+        public void run() {
+            runner = Thread.currentThread();
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                future.complete(get());
+            } catch (ExecutionException e) {
+                future.completeExceptionally(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
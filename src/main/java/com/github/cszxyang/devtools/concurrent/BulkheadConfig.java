@@ -0,0 +1,50 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Sizing of a bulkhead, the defaults are the ones of the historical single pool.
+ */
+@Getter
+@Builder
+public class BulkheadConfig {
+
+    @Builder.Default
+    private final int corePoolSize = 16;
+
+    @Builder.Default
+    private final int maxPoolSize = 100;
+
+    @Builder.Default
+    private final int queueCapacity = 5000;
+
+    @Builder.Default
+    private final int keepAliveSeconds = 60;
+
+    /**
+     * Prefix of the thread names, null means {@code bulkhead_<name>_}
+     */
+    private final String threadNamePrefix;
+
+    /**
+     * Log a metrics summary every so many seconds, 0 disables it
+     */
+    private final int metricsLogIntervalSeconds;
+
+    /**
+     * Adaptive sizing of the core pool size, null keeps {@link #corePoolSize} fixed
+     */
+    private final AdaptiveSizingPolicy adaptiveSizing;
+
+    /**
+     * Report tasks running for longer than this, 0 disables the watchdog
+     */
+    private final long slowTaskThresholdMillis;
+
+    @Builder.Default
+    private final RejectedExecutionHandler rejectedExecutionHandler = new ThreadPoolExecutor.CallerRunsPolicy();
+}
@@ -0,0 +1,101 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named, separately sized thread pools, so that a slow downstream can only saturate its own bulkhead.
+ * <p>
+ * Bulkheads are registered up front and their pool is only created on first use.
+ */
+public class BulkheadRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkheadRegistry.class);
+
+    /**
+     * Name of the bulkhead used by calls which do not pick one
+     */
+    public static final String DEFAULT = "default";
+
+    private static final Map<String, BulkheadConfig> CONFIGS = new ConcurrentHashMap<>();
+
+    private static final Map<String, VisualThreadPoolTaskExecutor> EXECUTORS = new ConcurrentHashMap<>();
+
+    static {
+        CONFIGS.put(DEFAULT, BulkheadConfig.builder().threadNamePrefix("parallel_supplier_utils").build());
+    }
+
+    private BulkheadRegistry() {
+    }
+
+    /**
+     * Register or replace a bulkhead before its first use
+     *
+     * @param name   bulkhead name
+     * @param config bulkhead sizing
+     * @throws IllegalStateException if the pool of the bulkhead has already been created
+     */
+    public static void register(String name, BulkheadConfig config) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(config);
+        synchronized (CONFIGS) {
+            if (EXECUTORS.containsKey(name)) {
+                throw new IllegalStateException("bulkhead " + name + " is already in use");
+            }
+            CONFIGS.put(name, config);
+        }
+    }
+
+    /**
+     * Get the pool of a bulkhead, creating it on first use
+     *
+     * @param name bulkhead name
+     * @return the pool of the bulkhead, see {@link VisualThreadPoolTaskExecutor#getMetrics()} for its metrics
+     * @throws IllegalArgumentException if no such bulkhead has been registered
+     */
+    public static VisualThreadPoolTaskExecutor get(String name) {
+        VisualThreadPoolTaskExecutor executor = EXECUTORS.get(name);
+        if (Objects.nonNull(executor)) {
+            return executor;
+        }
+        synchronized (CONFIGS) {
+            return EXECUTORS.computeIfAbsent(name, BulkheadRegistry::create);
+        }
+    }
+
+    /**
+     * @param name bulkhead name
+     * @return whether the pool of the bulkhead has been created
+     */
+    public static boolean isCreated(String name) {
+        return EXECUTORS.containsKey(name);
+    }
+
+    private static VisualThreadPoolTaskExecutor create(String name) {
+        BulkheadConfig config = CONFIGS.get(name);
+        if (Objects.isNull(config)) {
+            throw new IllegalArgumentException("unknown bulkhead: " + name);
+        }
+        VisualThreadPoolTaskExecutor executor = new VisualThreadPoolTaskExecutor();
+        executor.setCorePoolSize(config.getCorePoolSize());
+        executor.setMaxPoolSize(config.getMaxPoolSize());
+        executor.setQueueCapacity(config.getQueueCapacity());
+        executor.setKeepAliveSeconds(config.getKeepAliveSeconds());
+        executor.setThreadNamePrefix(Objects.isNull(config.getThreadNamePrefix())
+                ? "bulkhead_" + name + "_" : config.getThreadNamePrefix());
+        executor.setRejectedExecutionHandler(config.getRejectedExecutionHandler());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60 * 30);
+        executor.setMetricsLogIntervalSeconds(config.getMetricsLogIntervalSeconds());
+        executor.setAdaptiveSizing(config.getAdaptiveSizing());
+        executor.setSlowTaskThresholdMillis(config.getSlowTaskThresholdMillis());
+        executor.initialize();
+        logger.info("Bulkhead {} initialization finished. corePoolSize: {}, maxPoolSize: {}, queueCapacity: {}",
+                name, executor.getCorePoolSize(), executor.getMaxPoolSize(), config.getQueueCapacity());
+        return executor;
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Records the timings of the tasks of one call for its {@link ProcListener}.
+ * <p>
+ * Only created when the call has a listener, so that calls without one neither allocate nor wrap anything.
+ * Each task writes its own slots, which the calling thread reads once it has waited for the tasks.
+ */
+final class CallProfiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallProfiler.class);
+
+    private final ProcListener listener;
+
+    private final long start;
+
+    private final Thread caller = Thread.currentThread();
+
+    private final Object[] sources;
+
+    private final long[] submitNanos;
+
+    private final long[] startNanos;
+
+    private final long[] endNanos;
+
+    private final ThreadKind[] threadKinds;
+
+    private final String[] threadNames;
+
+    private CallProfiler(ProcListener listener, int size, long start) {
+        this.listener = listener;
+        this.start = start;
+        this.sources = new Object[size];
+        this.submitNanos = new long[size];
+        this.startNanos = new long[size];
+        this.endNanos = new long[size];
+        this.threadKinds = new ThreadKind[size];
+        this.threadNames = new String[size];
+    }
+
+    /**
+     * @param options options of the call
+     * @param size    max number of tasks of the call
+     * @param start   start of the call, in {@link System#nanoTime()}
+     * @return a profiler, null if the call has no listener
+     */
+    static CallProfiler of(ProcOptions options, int size, long start) {
+        return Objects.isNull(options.getListener()) ? null : new CallProfiler(options.getListener(), size, start);
+    }
+
+    /**
+     * Record the submission of a task, right before submitting it
+     *
+     * @param index    position of the task in the call
+     * @param source   what the task runs
+     * @param supplier the task
+     * @param <R>      result type
+     * @return the task recording when and where it runs
+     */
+    <R> Supplier<R> wrap(int index, Object source, Supplier<R> supplier) {
+        sources[index] = source;
+        submitNanos[index] = System.nanoTime();
+        return new ProfiledSupplier<>(index, supplier);
+    }
+
+    /**
+     * Record the end of a task which may be served without running, e.g. by a shared load
+     *
+     * @param index  position of the task in the call
+     * @param future result of the task
+     */
+    void track(int index, CompletableFuture<?> future) {
+        future.whenComplete((r, t) -> {
+            if (startNanos[index] == 0) {
+                endNanos[index] = System.nanoTime();
+            }
+        });
+    }
+
+    /**
+     * Report a flat fan-out, whose critical path is the task which finished last
+     */
+    void report() {
+        TaskProfile[] profiles = profiles();
+        TaskProfile last = null;
+        for (TaskProfile task : profiles) {
+            if (Objects.nonNull(task) && task.getEndOffsetNanos() >= 0
+                    && (Objects.isNull(last) || task.getEndOffsetNanos() > last.getEndOffsetNanos())) {
+                last = task;
+            }
+        }
+        publish(profiles, Objects.isNull(last) ? Collections.emptyList() : Collections.singletonList(last));
+    }
+
+    /**
+     * Report a call whose critical path is known
+     *
+     * @param criticalPath positions of the tasks of the critical path, from the first one to the last one
+     */
+    void report(List<Integer> criticalPath) {
+        TaskProfile[] profiles = profiles();
+        List<TaskProfile> path = new ArrayList<>(criticalPath.size());
+        for (int index : criticalPath) {
+            if (Objects.nonNull(profiles[index])) {
+                path.add(profiles[index]);
+            }
+        }
+        publish(profiles, path);
+    }
+
+    /**
+     * @return profile of each task by position, null for the positions without task
+     */
+    private TaskProfile[] profiles() {
+        TaskProfile[] profiles = new TaskProfile[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            if (Objects.isNull(sources[i])) {
+                continue;
+            }
+            long started = startNanos[i];
+            long ended = endNanos[i];
+            profiles[i] = new TaskProfile(i, sources[i], submitNanos[i] - start,
+                    started == 0 ? -1 : started - submitNanos[i],
+                    started == 0 || ended == 0 ? -1 : ended - started,
+                    ended == 0 ? -1 : ended - start,
+                    threadKinds[i], threadNames[i]);
+        }
+        return profiles;
+    }
+
+    private void publish(TaskProfile[] profiles, List<TaskProfile> criticalPath) {
+        List<TaskProfile> tasks = new ArrayList<>(profiles.length);
+        for (TaskProfile task : profiles) {
+            if (Objects.nonNull(task)) {
+                tasks.add(task);
+            }
+        }
+        try {
+            listener.onCall(new ProcProfile(System.nanoTime() - start, tasks, criticalPath));
+        } catch (RuntimeException e) {
+            logger.warn("Listener {} failed", listener, e);
+        }
+    }
+
+    private class ProfiledSupplier<R> implements Supplier<R>, SourcedTask {
+
+        private final int index;
+
+        private final Supplier<R> supplier;
+
+        ProfiledSupplier(int index, Supplier<R> supplier) {
+            this.index = index;
+            this.supplier = supplier;
+        }
+
+        @Override
+        public Object getSource() {
+            return supplier;
+        }
+
+        @Override
+        public R get() {
+            Thread thread = Thread.currentThread();
+            threadKinds[index] = ThreadKind.of(thread, caller);
+            threadNames[index] = thread.getName();
+            startNanos[index] = System.nanoTime();
+            try {
+                return supplier.get();
+            } finally {
+                endNanos[index] = System.nanoTime();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.cszxyang.devtools.concurrent;
+
+/**
+ * Where {@code procAsync} runs its suppliers.
+ */
+public enum ExecutionBackend {
+
+    /**
+     * The bounded thread pool of {@link ParallelTaskProcessor}
+     */
+    POOL,
+
+    /**
+     * One virtual thread per supplier, falling back to {@link #POOL} when the JVM has no virtual threads
+     */
+    VIRTUAL_THREAD,
+
+    /**
+     * Work-stealing pools, one per {@link TaskPriority}, where nested fan-outs run their children
+     * rather than blocking a thread on them
+     */
+    WORK_STEALING
+}
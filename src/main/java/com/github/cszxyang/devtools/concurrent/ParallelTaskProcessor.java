@@ -3,31 +3,54 @@ package com.github.cszxyang.devtools.concurrent;
 import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ParallelTaskProcessor {
 
     private static final Logger logger = LoggerFactory.getLogger(ParallelTaskProcessor.class);
 
-    private static final ThreadPoolTaskExecutor EXECUTOR = new VisualThreadPoolTaskExecutor();
+    private static volatile ExecutionBackend defaultBackend = ExecutionBackend.POOL;
 
-    static {
-        EXECUTOR.setCorePoolSize(16);
-        EXECUTOR.setMaxPoolSize(100);
-        EXECUTOR.setQueueCapacity(5000);
-        EXECUTOR.setThreadNamePrefix("parallel_supplier_utils");
-        EXECUTOR.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        EXECUTOR.setWaitForTasksToCompleteOnShutdown(true);
-        EXECUTOR.setAwaitTerminationSeconds(60 * 30);
-        EXECUTOR.initialize();
-        logger.info("Thread pool initialization finished. corePoolSize: {}, maxPoolSize: {}",
-                EXECUTOR.getPoolSize(), EXECUTOR.getMaxPoolSize());
+    /**
+     * Choose the backend of the calls which do not pick one in their {@link ProcOptions}
+     *
+     * @param backend execution backend
+     */
+    public static void setDefaultBackend(ExecutionBackend backend) {
+        defaultBackend = Objects.requireNonNull(backend);
+    }
+
+    /**
+     * @return whether {@link ExecutionBackend#VIRTUAL_THREAD} really runs on virtual threads in this JVM
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.isSupported();
+    }
+
+    /**
+     * resolve the executor of a call, falling back to the bulkhead pool when virtual threads are not supported
+     */
+    static Executor executor(ProcOptions options) {
+        ExecutionBackend backend = Objects.isNull(options.getBackend()) ? defaultBackend : options.getBackend();
+        if (backend == ExecutionBackend.VIRTUAL_THREAD && VirtualThreads.isSupported()) {
+            return VirtualThreads.executor();
+        }
+        if (backend == ExecutionBackend.WORK_STEALING) {
+            return WorkStealingPools.executor(options.getPriority());
+        }
+        String bulkhead = Objects.isNull(options.getBulkhead()) ? BulkheadRegistry.DEFAULT : options.getBulkhead();
+        return BulkheadRegistry.get(bulkhead);
     }
 
     @Data
@@ -50,17 +73,15 @@ public class ParallelTaskProcessor {
      */
     public static <F, S, T> ResultHolder<F, S, T> procAsync(Supplier<F> first, Supplier<S> second, Supplier<T> third) {
         ResultHolder<F, S, T> resultHolder = new ResultHolder<>();
-        List<CompletableFuture> futures = new ArrayList<>(3);
-        if (Objects.nonNull(first)) {
-            futures.add(CompletableFuture.supplyAsync(first, EXECUTOR).thenAccept(resultHolder::setFirst));
-        }
-        if (Objects.nonNull(second)) {
-            futures.add(CompletableFuture.supplyAsync(second, EXECUTOR).thenAccept(resultHolder::setSecond));
-        }
-        if (Objects.nonNull(third)) {
-            futures.add(CompletableFuture.supplyAsync(third, EXECUTOR).thenAccept(resultHolder::setThird));
-        }
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        TaskGroup group = new TaskGroup();
+        TaskGroup.Handle<F> firstHandle = Objects.nonNull(first) ? group.add(first) : null;
+        TaskGroup.Handle<S> secondHandle = Objects.nonNull(second) ? group.add(second) : null;
+        TaskGroup.Handle<T> thirdHandle = Objects.nonNull(third) ? group.add(third) : null;
+        group.join();
+        // every result is read on the calling thread once all tasks are done
+        resultHolder.setFirst(Objects.nonNull(firstHandle) ? firstHandle.get() : null);
+        resultHolder.setSecond(Objects.nonNull(secondHandle) ? secondHandle.get() : null);
+        resultHolder.setThird(Objects.nonNull(thirdHandle) ? thirdHandle.get() : null);
         return resultHolder;
     }
 
@@ -73,18 +94,281 @@ public class ParallelTaskProcessor {
      * @return a collection of result
      */
     public static <R> Collection<R> procAsync(Collection<Supplier<R>> suppliers, boolean distinct) {
+        return procAsync(suppliers, distinct, ProcOptions.DEFAULT);
+    }
+
+    /**
+     * consume a collection of suppliers under a deadline, task timeout and failure policy
+     *
+     * @param suppliers method handle
+     * @param distinct  distinct result, keeping the first occurrence
+     * @param options   deadline, task timeout, failure policy, result order and listener
+     * @param <R>       result type
+     * @return a collection of result, only the completed part of it with {@link ProcPolicy#BEST_EFFORT}
+     * @throws CompletionException if a task fails or the deadline passes, unless {@link ProcPolicy#BEST_EFFORT}
+     */
+    public static <R> Collection<R> procAsync(Collection<Supplier<R>> suppliers, boolean distinct, ProcOptions options) {
         if (CollectionUtils.isEmpty(suppliers)) {
             return distinct ? Collections.emptySet() : Collections.emptyList();
         }
-        Collection<R> res = distinct ? new HashSet<>() : new ArrayList<>();
-        // wait for all tasks to finish
-        CompletableFuture.allOf(suppliers.stream().filter(Objects::nonNull).map(supplier ->
-                CompletableFuture.supplyAsync(supplier, EXECUTOR).thenAccept(r -> {
+        long start = System.nanoTime();
+        long forkMark = WorkStealingPools.forkMark();
+        Executor executor = executor(options);
+        CallProfiler profiler = CallProfiler.of(options, suppliers.size(), start);
+        List<CompletableFuture<R>> futures = new ArrayList<>(suppliers.size());
+        // lock free, each completion appends its own result in completion order
+        Queue<R> completed = options.isOrdered() ? null : new ConcurrentLinkedQueue<>();
+        for (Supplier<R> supplier : suppliers) {
+            if (Objects.nonNull(supplier)) {
+                Supplier<R> task = Objects.isNull(profiler) ? supplier
+                        : profiler.wrap(futures.size(), supplier, supplier);
+                CompletableFuture<R> future = AsyncTasks.supplyAsync(task, executor, options.getTaskTimeout());
+                if (Objects.nonNull(completed)) {
+                    // wait for the recording stage, so that waiting also covers appending the result
+                    CompletableFuture<R> source = future;
+                    future = source.whenComplete((r, t) -> {
+                        if (Objects.isNull(t) && Objects.nonNull(r)) {
+                            completed.add(r);
+                        }
+                    });
+                    future.whenComplete((r, t) -> {
+                        if (Objects.nonNull(t)) {
+                            source.cancel(true);
+                        }
+                    });
+                }
+                futures.add(future);
+            }
+        }
+        try {
+            AsyncTasks.await(futures, options, start, forkMark);
+        } finally {
+            if (Objects.nonNull(profiler)) {
+                profiler.report();
+            }
+        }
+        Collection<R> res = distinct ? new LinkedHashSet<>() : new ArrayList<>(futures.size());
+        if (options.isOrdered()) {
+            for (CompletableFuture<R> future : futures) {
+                if (future.isDone() && !future.isCompletedExceptionally()) {
+                    R r = future.join();
                     if (Objects.nonNull(r)) {
                         res.add(r);
                     }
-                })
-        ).toArray(CompletableFuture[]::new)).join();
+                }
+            }
+        } else {
+            res.addAll(completed);
+        }
+        return res;
+    }
+
+    /**
+     * load a collection of keys in parallel, each distinct key is loaded once, and not at all while another call
+     * is loading it or has its result cached in the flight
+     *
+     * @param keys   keys to load
+     * @param loader loads one key
+     * @param flight coalescing and caching of the loads, shared between calls
+     * @param <K>    key type
+     * @param <R>    result type
+     * @return the non null result of each key, in the order of the keys
+     */
+    public static <K, R> Map<K, R> procAsync(Collection<K> keys, Function<? super K, ? extends R> loader,
+                                             SingleFlight<K, R> flight) {
+        return procAsync(keys, loader, flight, ProcOptions.DEFAULT);
+    }
+
+    /**
+     * load a collection of keys in parallel under a deadline, task timeout and failure policy, each distinct key
+     * is loaded once, and not at all while another call is loading it or has its result cached in the flight
+     *
+     * @param keys    keys to load
+     * @param loader  loads one key
+     * @param flight  coalescing and caching of the loads, shared between calls
+     * @param options deadline, task timeout, failure policy and listener, the backend and task timeout only
+     *                apply to the loads started by this call
+     * @param <K>     key type
+     * @param <R>     result type
+     * @return the non null result of each key, in the order of the keys, only the completed part of it with
+     * {@link ProcPolicy#BEST_EFFORT}
+     * @throws CompletionException if a load fails or the deadline passes, unless {@link ProcPolicy#BEST_EFFORT}
+     */
+    public static <K, R> Map<K, R> procAsync(Collection<K> keys, Function<? super K, ? extends R> loader,
+                                             SingleFlight<K, R> flight, ProcOptions options) {
+        Objects.requireNonNull(loader);
+        Objects.requireNonNull(flight);
+        if (CollectionUtils.isEmpty(keys)) {
+            return Collections.emptyMap();
+        }
+        long start = System.nanoTime();
+        long forkMark = WorkStealingPools.forkMark();
+        Executor executor = executor(options);
+        CallProfiler profiler = CallProfiler.of(options, keys.size(), start);
+        Map<K, CompletableFuture<R>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (Objects.nonNull(key) && !futures.containsKey(key)) {
+                Supplier<R> task = () -> loader.apply(key);
+                if (Objects.nonNull(profiler)) {
+                    task = profiler.wrap(futures.size(), key, task);
+                }
+                CompletableFuture<R> future = flight.submit(key, task, executor, options.getTaskTimeout());
+                if (Objects.nonNull(profiler)) {
+                    profiler.track(futures.size(), future);
+                }
+                futures.put(key, future);
+            }
+        }
+        try {
+            AsyncTasks.await(new ArrayList<>(futures.values()), options, start, forkMark);
+        } finally {
+            if (Objects.nonNull(profiler)) {
+                profiler.report();
+            }
+        }
+        Map<K, R> res = new LinkedHashMap<>();
+        for (Map.Entry<K, CompletableFuture<R>> entry : futures.entrySet()) {
+            CompletableFuture<R> future = entry.getValue();
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                R r = future.join();
+                if (Objects.nonNull(r)) {
+                    res.put(entry.getKey(), r);
+                }
+            }
+        }
         return res;
     }
+
+    /**
+     * consume a collection of suppliers and iterate over their results as soon as each one completes
+     *
+     * @param suppliers   method handle
+     * @param maxInFlight max number of suppliers running or waiting to be consumed at the same time
+     * @param <R>         result type
+     * @return an iterator yielding results in completion order
+     */
+    public static <R> TaskResultIterator<R> procAsyncIterator(Collection<Supplier<R>> suppliers, int maxInFlight) {
+        return procAsyncIterator(suppliers, maxInFlight, ProcOptions.DEFAULT);
+    }
+
+    /**
+     * consume a collection of suppliers and iterate over their results as soon as each one completes,
+     * only the backend and task timeout of the options apply
+     *
+     * @param suppliers   method handle
+     * @param maxInFlight max number of suppliers running or waiting to be consumed at the same time
+     * @param options     backend and task timeout
+     * @param <R>         result type
+     * @return an iterator yielding results in completion order
+     */
+    public static <R> TaskResultIterator<R> procAsyncIterator(Collection<Supplier<R>> suppliers, int maxInFlight,
+                                                              ProcOptions options) {
+        Iterator<Supplier<R>> source = CollectionUtils.isEmpty(suppliers)
+                ? Collections.emptyIterator() : suppliers.iterator();
+        return new TaskResultIterator<>(source, executor(options), maxInFlight, options.getTaskTimeout());
+    }
+
+    /**
+     * consume a collection of suppliers and stream their results in completion order,
+     * closing the stream stops submitting the remaining suppliers
+     *
+     * @param suppliers   method handle
+     * @param maxInFlight max number of suppliers running or waiting to be consumed at the same time
+     * @param <R>         result type
+     * @return a sequential stream of results in completion order
+     */
+    public static <R> Stream<R> procAsyncStream(Collection<Supplier<R>> suppliers, int maxInFlight) {
+        TaskResultIterator<R> iterator = procAsyncIterator(suppliers, maxInFlight);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * consume a collection of suppliers and hand each result to the sink on the calling thread as soon as it completes,
+     * a slow sink holds back the submission of the remaining suppliers
+     *
+     * @param suppliers   method handle
+     * @param maxInFlight max number of suppliers running or waiting to be consumed at the same time
+     * @param sink        result consumer
+     * @param <R>         result type
+     */
+    public static <R> void procAsync(Collection<Supplier<R>> suppliers, int maxInFlight, Consumer<? super R> sink) {
+        try (TaskResultIterator<R> iterator = procAsyncIterator(suppliers, maxInFlight)) {
+            iterator.forEachRemaining(sink);
+        }
+    }
+
+    /**
+     * split the keys into batches and load them in parallel, streaming the merged results
+     *
+     * @param keys           keys to load
+     * @param batchSize      max number of keys of a batch
+     * @param maxConcurrency max number of batches loading or waiting to be consumed at the same time
+     * @param ordered        merge the results in the order of the batches rather than in completion order
+     * @param loader         loads one batch, which is a view of the keys
+     * @param <K>            key type
+     * @param <R>            result type
+     * @return a sequential stream of the non null results of every batch
+     */
+    public static <K, R> Stream<R> procPartitioned(List<K> keys, int batchSize, int maxConcurrency, boolean ordered,
+                                                   Function<List<K>, ? extends Collection<R>> loader) {
+        return procPartitioned(keys, batchSize, maxConcurrency, ordered, loader, ProcOptions.DEFAULT);
+    }
+
+    /**
+     * split the keys into batches and load them in parallel, streaming the merged results,
+     * only the backend and task timeout of the options apply
+     *
+     * @param keys           keys to load
+     * @param batchSize      max number of keys of a batch
+     * @param maxConcurrency max number of batches loading or waiting to be consumed at the same time
+     * @param ordered        merge the results in the order of the batches rather than in completion order
+     * @param loader         loads one batch, which is a view of the keys
+     * @param options        backend and task timeout
+     * @param <K>            key type
+     * @param <R>            result type
+     * @return a sequential stream of the non null results of every batch
+     */
+    public static <K, R> Stream<R> procPartitioned(List<K> keys, int batchSize, int maxConcurrency, boolean ordered,
+                                                   Function<List<K>, ? extends Collection<R>> loader,
+                                                   ProcOptions options) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        if (CollectionUtils.isEmpty(keys)) {
+            return Stream.empty();
+        }
+        TaskResultIterator<Collection<R>> iterator = new TaskResultIterator<>(partitions(keys, batchSize, loader),
+                executor(options), maxConcurrency, options.getTaskTimeout(), ordered);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                ordered ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL), false)
+                .onClose(iterator::close)
+                .flatMap(Collection::stream)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * lazily create one loading supplier per batch
+     */
+    private static <K, R> Iterator<Supplier<Collection<R>>> partitions(List<K> keys, int batchSize,
+                                                                       Function<List<K>, ? extends Collection<R>> loader) {
+        return new Iterator<Supplier<Collection<R>>>() {
+            private int from;
+
+            @Override
+            public boolean hasNext() {
+                return from < keys.size();
+            }
+
+            @Override
+            public Supplier<Collection<R>> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<K> batch = keys.subList(from, Math.min(from + batchSize, keys.size()));
+                from += batchSize;
+                return () -> loader.apply(batch);
+            }
+        };
+    }
 }
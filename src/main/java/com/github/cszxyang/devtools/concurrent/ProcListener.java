@@ -0,0 +1,16 @@
+package com.github.cszxyang.devtools.concurrent;
+
+/**
+ * Receives the profile of every call made with it in its {@link ProcOptions}.
+ * <p>
+ * It is called on the thread of the call once the call is over, whether the call succeeded or not,
+ * so it should be quick, e.g. record metrics or log the slow calls. Its exceptions are logged and ignored.
+ */
+@FunctionalInterface
+public interface ProcListener {
+
+    /**
+     * @param profile timings of the call and of each of its tasks
+     */
+    void onCall(ProcProfile profile);
+}
@@ -0,0 +1,60 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Options of a single {@code procAsync} call.
+ */
+@Getter
+@Builder
+public class ProcOptions {
+
+    /**
+     * Waiting for every task, with neither deadline nor task timeout
+     */
+    public static final ProcOptions DEFAULT = ProcOptions.builder().build();
+
+    /**
+     * Overall deadline of the call, measured from its start, null means no deadline
+     */
+    private final Duration deadline;
+
+    /**
+     * Timeout of each task, measured from its submission, null means no timeout
+     */
+    private final Duration taskTimeout;
+
+    @Builder.Default
+    private final ProcPolicy policy = ProcPolicy.WAIT_ALL;
+
+    /**
+     * Collect results in the order of the suppliers rather than in completion order
+     */
+    private final boolean ordered;
+
+    /**
+     * Backend running the suppliers, null means the default backend of {@link ParallelTaskProcessor}
+     */
+    private final ExecutionBackend backend;
+
+    /**
+     * Class, that is pool, of the call on the {@link ExecutionBackend#WORK_STEALING} backend
+     */
+    @Builder.Default
+    private final TaskPriority priority = TaskPriority.INTERACTIVE;
+
+    /**
+     * Name of the {@link BulkheadRegistry bulkhead} running the suppliers on the pool backend,
+     * null means {@link BulkheadRegistry#DEFAULT}
+     */
+    private final String bulkhead;
+
+    /**
+     * Receives the queue and run time of each task of the call once it is over, null (the default) disables
+     * the profiling, which then costs nothing
+     */
+    private final ProcListener listener;
+}
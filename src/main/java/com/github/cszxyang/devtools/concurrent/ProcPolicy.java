@@ -0,0 +1,23 @@
+package com.github.cszxyang.devtools.concurrent;
+
+/**
+ * How a fan-out reacts to failed tasks and to its deadline.
+ */
+public enum ProcPolicy {
+
+    /**
+     * Wait for every task, then rethrow the first failure. Running out of the deadline is a failure.
+     */
+    WAIT_ALL,
+
+    /**
+     * Rethrow as soon as one task fails or the deadline passes, cancelling the remaining tasks.
+     */
+    FAIL_FAST,
+
+    /**
+     * Ignore failed tasks and return whatever has completed once every task is done or the deadline passes,
+     * cancelling the tasks which are still running.
+     */
+    BEST_EFFORT
+}
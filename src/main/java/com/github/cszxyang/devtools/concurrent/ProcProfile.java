@@ -0,0 +1,66 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Timings of a profiled call, handed to its {@link ProcListener}.
+ */
+public class ProcProfile {
+
+    /**
+     * How long the call took, from its start to the end of its wait
+     */
+    @Getter
+    private final long elapsedNanos;
+
+    private final List<TaskProfile> tasks;
+
+    private final List<TaskProfile> criticalPath;
+
+    ProcProfile(long elapsedNanos, List<TaskProfile> tasks, List<TaskProfile> criticalPath) {
+        this.elapsedNanos = elapsedNanos;
+        this.tasks = tasks;
+        this.criticalPath = criticalPath;
+    }
+
+    /**
+     * @return timings of every submitted task, in the order of the call
+     */
+    public List<TaskProfile> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+
+    /**
+     * @return the task which ran the longest, null if no task finished
+     */
+    public TaskProfile getSlowest() {
+        TaskProfile slowest = null;
+        for (TaskProfile task : tasks) {
+            if (task.getRunNanos() >= 0 && (Objects.isNull(slowest) || task.getRunNanos() > slowest.getRunNanos())) {
+                slowest = task;
+            }
+        }
+        return slowest;
+    }
+
+    /**
+     * The chain of tasks which determined the latency of the call. For a flat fan-out it is the task which
+     * finished last, queueing included; for a {@link TaskGraph} it walks back through the dependency which
+     * finished last.
+     *
+     * @return timings of the critical path, from its first task to its last one, empty if no task finished
+     */
+    public List<TaskProfile> getCriticalPath() {
+        return Collections.unmodifiableList(criticalPath);
+    }
+
+    @Override
+    public String toString() {
+        return "elapsed=" + elapsedNanos / 1000_000 + "ms, tasks=" + tasks.size() + ", slowest=" + getSlowest()
+                + ", criticalPath=" + criticalPath;
+    }
+}
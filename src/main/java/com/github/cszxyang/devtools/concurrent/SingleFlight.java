@@ -0,0 +1,218 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces the loads of a same key: while a load of a key is running, every other request of that key
+ * waits for it instead of starting its own, whichever call or thread it comes from.
+ * <p>
+ * Optionally, completed results are kept for a time to live in a cache bounded in size, evicting the least
+ * recently used key first. Null results are cached as well, failures are not.
+ * <pre>{@code
+ * private static final SingleFlight<Long, User> USERS = new SingleFlight<>(Duration.ofSeconds(5), 10_000);
+ *
+ * Map<Long, User> users = ParallelTaskProcessor.procAsync(userIds, userService::get, USERS);
+ * }</pre>
+ * A load runs with the executor and task timeout of the request which started it, requests joining it only
+ * bound their own wait. Instances are thread safe and meant to be shared, typically one per kind of load.
+ *
+ * @param <K> key type
+ * @param <R> result type
+ */
+public class SingleFlight<K, R> {
+
+    private final Map<K, CompletableFuture<R>> inFlight = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+
+    /**
+     * Access ordered, null without cache
+     */
+    private final LinkedHashMap<K, Cached<R>> cache;
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Coalescing only, without cache
+     */
+    public SingleFlight() {
+        this.ttlNanos = 0;
+        this.cache = null;
+    }
+
+    /**
+     * Coalescing, and caching of the completed results
+     *
+     * @param ttl         time to live of a result, measured from its completion
+     * @param maximumSize max number of cached results
+     */
+    public SingleFlight(Duration ttl, int maximumSize) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.cache = new LinkedHashMap<K, Cached<R>>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Cached<R>> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Load a key on the backend of the options, or join its running load, or take its cached result
+     *
+     * @param key      key
+     * @param loader   method handle loading the key, only called when the key is neither running nor cached
+     * @param options  backend and task timeout of the load
+     * @return a future of the result, cancelling it does not cancel the load shared with other requests
+     */
+    public CompletableFuture<R> submit(K key, Supplier<? extends R> loader, ProcOptions options) {
+        return submit(key, loader, ParallelTaskProcessor.executor(options), options.getTaskTimeout());
+    }
+
+    CompletableFuture<R> submit(K key, Supplier<? extends R> loader, Executor executor, Duration taskTimeout) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        Cached<R> cached = getCached(key);
+        if (Objects.nonNull(cached)) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached.value);
+        }
+        CompletableFuture<R> shared = new CompletableFuture<>();
+        CompletableFuture<R> running = inFlight.putIfAbsent(key, shared);
+        if (Objects.nonNull(running)) {
+            coalesced.increment();
+            return running.thenApply(Function.identity());
+        }
+        // the load which just finished may have filled the cache after the first lookup
+        cached = getCached(key);
+        if (Objects.nonNull(cached)) {
+            hits.increment();
+            inFlight.remove(key, shared);
+            shared.complete(cached.value);
+            return CompletableFuture.completedFuture(cached.value);
+        }
+        loads.increment();
+        AsyncTasks.supplyAsync(loader::get, executor, taskTimeout).whenComplete((r, t) -> {
+            // cache before leaving the in flight map, so that no request falls between the two
+            if (Objects.isNull(t) && Objects.nonNull(cache)) {
+                synchronized (cache) {
+                    cache.put(key, new Cached<>(r, System.nanoTime() + ttlNanos));
+                }
+            }
+            inFlight.remove(key, shared);
+            if (Objects.isNull(t)) {
+                shared.complete(r);
+            } else {
+                shared.completeExceptionally(t);
+            }
+        });
+        return shared.thenApply(Function.identity());
+    }
+
+    /**
+     * Drop the cached result of a key, a running load of the key is not affected
+     *
+     * @param key key
+     */
+    public void invalidate(K key) {
+        if (Objects.nonNull(cache)) {
+            synchronized (cache) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Drop every cached result
+     */
+    public void invalidateAll() {
+        if (Objects.nonNull(cache)) {
+            synchronized (cache) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * @return number of loads started, which is the number of calls to the loaders
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * @return number of requests which joined a running load
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return number of requests served from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of cached results, expired ones included until they are looked up or evicted
+     */
+    public int getCacheSize() {
+        if (Objects.isNull(cache)) {
+            return 0;
+        }
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "loads=" + getLoads() + ", coalesced=" + getCoalesced() + ", hits=" + getHits()
+                + ", cacheSize=" + getCacheSize();
+    }
+
+    private Cached<R> getCached(K key) {
+        if (Objects.isNull(cache)) {
+            return null;
+        }
+        synchronized (cache) {
+            Cached<R> cached = cache.get(key);
+            if (Objects.nonNull(cached) && cached.expireNanos - System.nanoTime() <= 0) {
+                cache.remove(key);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private static class Cached<R> {
+
+        private final R value;
+
+        private final long expireNanos;
+
+        Cached(R value, long expireNanos) {
+            this.value = value;
+            this.expireNanos = expireNanos;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the tasks running on a pool and reports the ones running past a threshold,
+ * together with stack samples of their threads.
+ * <p>
+ * Each worker thread owns one reusable slot, so starting and ending a task only writes two fields of it.
+ * The submission site is the class of the submitted supplier or task, a lambda class names the code
+ * which submitted it, or the first caller frame of a stack captured at submission when the pool captures them.
+ * Stacks of running tasks are only sampled by the watchdog thread, and only for slow tasks.
+ */
+public class SlowTaskWatchdog implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowTaskWatchdog.class);
+
+    private static final int MAX_REPORTS = 100;
+
+    private final String poolName;
+
+    private final long thresholdNanos;
+
+    private final int maxStackDepth;
+
+    private final Map<Thread, Slot> slots = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Slot> localSlot = ThreadLocal.withInitial(this::newSlot);
+
+    private final Deque<SlowTaskReport> reports = new ConcurrentLinkedDeque<>();
+
+    /**
+     * @param poolName       name of the watched pool, for logging
+     * @param thresholdNanos running time above which a task is reported
+     * @param maxStackDepth  max number of frames kept per stack sample
+     */
+    public SlowTaskWatchdog(String poolName, long thresholdNanos, int maxStackDepth) {
+        this.poolName = poolName;
+        this.thresholdNanos = thresholdNanos;
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    /**
+     * Mark the current thread as running a task
+     *
+     * @param site  class of the submitted task, or stack captured at submission
+     * @param start start of the task, in {@link System#nanoTime()}
+     */
+    void onStart(Object site, long start) {
+        Slot slot = localSlot.get();
+        slot.site = site;
+        slot.start = start;
+    }
+
+    /**
+     * Mark the current thread as idle
+     */
+    void onEnd() {
+        Slot slot = localSlot.get();
+        slot.start = 0;
+        slot.site = null;
+    }
+
+    /**
+     * One pass over the running tasks, meant to be scheduled periodically
+     */
+    @Override
+    public void run() {
+        long now = System.nanoTime();
+        for (Slot slot : slots.values()) {
+            if (!slot.thread.isAlive()) {
+                slots.remove(slot.thread);
+                continue;
+            }
+            long start = slot.start;
+            Object site = slot.site;
+            if (start == 0 || Objects.isNull(site) || now - start < thresholdNanos) {
+                continue;
+            }
+            StackTraceElement[] stack = slot.thread.getStackTrace();
+            if (slot.start != start) {
+                // finished while sampling
+                continue;
+            }
+            StackTraceElement[] sample = Arrays.copyOf(stack, Math.min(stack.length, maxStackDepth));
+            SlowTaskReport report = new SlowTaskReport(slot.thread.getName(), describe(site),
+                    TimeUnit.NANOSECONDS.toMillis(now - start), sample);
+            reports.addFirst(report);
+            while (reports.size() > MAX_REPORTS) {
+                reports.pollLast();
+            }
+            if (slot.reportedStart != start) {
+                slot.reportedStart = start;
+                logger.warn("{} slow task on {} submitted from {}, running for {} ms\n{}", poolName,
+                        report.getThreadName(), report.getSubmissionSite(), report.getRunningMillis(),
+                        report.formatStack());
+            }
+        }
+    }
+
+    /**
+     * @return the most recent reports, latest first, a task still running is sampled once per pass
+     */
+    public List<SlowTaskReport> getReports() {
+        return Collections.unmodifiableList(new ArrayList<>(reports));
+    }
+
+    /**
+     * @return number of tasks currently running for longer than the threshold
+     */
+    public int getSlowTaskCount() {
+        long now = System.nanoTime();
+        int count = 0;
+        for (Slot slot : slots.values()) {
+            long start = slot.start;
+            if (start != 0 && now - start >= thresholdNanos) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String describe(Object site) {
+        if (site instanceof Class) {
+            return ((Class<?>) site).getName();
+        }
+        for (StackTraceElement element : ((Throwable) site).getStackTrace()) {
+            String className = element.getClassName();
+            if (!className.startsWith("com.github.cszxyang.devtools.concurrent.")
+                    && !className.startsWith("org.springframework.")
+                    && !className.startsWith("java.util.")) {
+                return element.toString();
+            }
+        }
+        return "unknown";
+    }
+
+    private Slot newSlot() {
+        Slot slot = new Slot(Thread.currentThread());
+        slots.put(slot.thread, slot);
+        return slot;
+    }
+
+    private static class Slot {
+
+        private final Thread thread;
+
+        private volatile long start;
+
+        private volatile Object site;
+
+        /**
+         * Only touched by the watchdog, so each slow task is logged once
+         */
+        private long reportedStart;
+
+        Slot(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    /**
+     * A task seen running past the threshold
+     */
+    @Getter
+    public static class SlowTaskReport {
+
+        private final String threadName;
+
+        private final String submissionSite;
+
+        private final long runningMillis;
+
+        private final StackTraceElement[] stack;
+
+        SlowTaskReport(String threadName, String submissionSite, long runningMillis, StackTraceElement[] stack) {
+            this.threadName = threadName;
+            this.submissionSite = submissionSite;
+            this.runningMillis = runningMillis;
+            this.stack = stack;
+        }
+
+        /**
+         * @return the stack sample, one frame per line
+         */
+        public String formatStack() {
+            StringBuilder builder = new StringBuilder();
+            for (StackTraceElement element : stack) {
+                builder.append("\tat ").append(element).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.cszxyang.devtools.concurrent;
+
+/**
+ * A task wrapping user code, which tells what it wraps so that monitoring can name the code rather than the wrapper.
+ */
+interface SourcedTask {
+
+    /**
+     * @return the wrapped user code
+     */
+    Object getSource();
+}
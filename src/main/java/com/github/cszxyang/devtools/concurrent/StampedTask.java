@@ -0,0 +1,12 @@
+package com.github.cszxyang.devtools.concurrent;
+
+/**
+ * A task knowing when it was submitted, so that a pool can measure its queue wait without wrapping it.
+ */
+interface StampedTask {
+
+    /**
+     * @return submission time, in {@link System#nanoTime()}
+     */
+    long getSubmitNanos();
+}
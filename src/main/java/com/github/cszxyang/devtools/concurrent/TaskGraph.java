@@ -0,0 +1,430 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A dependency graph of tasks, each task runs as soon as the tasks it depends on have finished.
+ * <p>
+ * A task can only depend on tasks added before it, so the graph is acyclic by construction.
+ * A graph can be executed any number of times, every execution returns its own {@link Result}.
+ * <pre>{@code
+ * TaskGraph graph = new TaskGraph();
+ * TaskGraph.Node<User> user = graph.add("user", () -> userService.get(userId));
+ * TaskGraph.Node<List<Order>> orders = graph.add("orders", user, u -> orderService.list(u));
+ * TaskGraph.Node<Config> config = graph.add("config", () -> configService.get());
+ * TaskGraph.Node<Page> page = graph.add("page", orders, config, Page::new);
+ * Page result = graph.execute().get(page);
+ * }</pre>
+ */
+public class TaskGraph {
+
+    private final List<Node<?>> nodes = new ArrayList<>();
+
+    /**
+     * Add a task without dependency
+     *
+     * @param name task name
+     * @param task method handle
+     * @param <T>  result type
+     * @return the node of the task
+     */
+    public <T> Node<T> add(String name, Supplier<? extends T> task) {
+        Objects.requireNonNull(task);
+        return addNode(name, Collections.emptyList(), args -> task.get());
+    }
+
+    /**
+     * Add a task depending on another one
+     *
+     * @param name task name
+     * @param a    dependency
+     * @param task method handle, taking the result of the dependency
+     * @param <A>  result type of the dependency
+     * @param <T>  result type
+     * @return the node of the task
+     */
+    @SuppressWarnings("unchecked")
+    public <A, T> Node<T> add(String name, Node<A> a, Function<? super A, ? extends T> task) {
+        Objects.requireNonNull(task);
+        return addNode(name, Collections.singletonList(a), args -> task.apply((A) args[0]));
+    }
+
+    /**
+     * Add a task depending on two other ones
+     *
+     * @param name task name
+     * @param a    first dependency
+     * @param b    second dependency
+     * @param task method handle, taking the results of the dependencies
+     * @param <A>  result type of the first dependency
+     * @param <B>  result type of the second dependency
+     * @param <T>  result type
+     * @return the node of the task
+     */
+    @SuppressWarnings("unchecked")
+    public <A, B, T> Node<T> add(String name, Node<A> a, Node<B> b, BiFunction<? super A, ? super B, ? extends T> task) {
+        Objects.requireNonNull(task);
+        List<Node<?>> deps = new ArrayList<>(2);
+        deps.add(a);
+        deps.add(b);
+        return addNode(name, deps, args -> task.apply((A) args[0], (B) args[1]));
+    }
+
+    /**
+     * Add a task depending on three other ones
+     *
+     * @param name task name
+     * @param a    first dependency
+     * @param b    second dependency
+     * @param c    third dependency
+     * @param task method handle, taking the results of the dependencies
+     * @param <A>  result type of the first dependency
+     * @param <B>  result type of the second dependency
+     * @param <C>  result type of the third dependency
+     * @param <T>  result type
+     * @return the node of the task
+     */
+    @SuppressWarnings("unchecked")
+    public <A, B, C, T> Node<T> add(String name, Node<A> a, Node<B> b, Node<C> c,
+                                    TriFunction<? super A, ? super B, ? super C, ? extends T> task) {
+        Objects.requireNonNull(task);
+        List<Node<?>> deps = new ArrayList<>(3);
+        deps.add(a);
+        deps.add(b);
+        deps.add(c);
+        return addNode(name, deps, args -> task.apply((A) args[0], (B) args[1], (C) args[2]));
+    }
+
+    /**
+     * Add a task depending on any number of tasks of the same type
+     *
+     * @param name task name
+     * @param deps dependencies
+     * @param task method handle, taking the results of the dependencies in their order
+     * @param <A>  result type of the dependencies
+     * @param <T>  result type
+     * @return the node of the task
+     */
+    @SuppressWarnings("unchecked")
+    public <A, T> Node<T> addAll(String name, Collection<? extends Node<? extends A>> deps,
+                                 Function<? super List<A>, ? extends T> task) {
+        Objects.requireNonNull(task);
+        return addNode(name, new ArrayList<>(deps), args -> {
+            List<A> values = new ArrayList<>(args.length);
+            for (Object arg : args) {
+                values.add((A) arg);
+            }
+            return task.apply(values);
+        });
+    }
+
+    /**
+     * Execute the graph on the default backend, waiting for every task
+     *
+     * @return results and timings of the execution
+     * @throws CompletionException if a task fails
+     */
+    public Result execute() {
+        return execute(ProcOptions.DEFAULT);
+    }
+
+    /**
+     * Execute the graph, a task whose dependency failed fails the same way without running
+     *
+     * @param options backend, bulkhead, deadline, task timeout, failure policy and listener
+     * @return results and timings of the execution, failed or unfinished tasks have null results
+     *         with {@link ProcPolicy#BEST_EFFORT}
+     * @throws CompletionException if a task fails or the deadline passes, unless {@link ProcPolicy#BEST_EFFORT}
+     */
+    public Result execute(ProcOptions options) {
+        long start = System.nanoTime();
+        long forkMark = WorkStealingPools.forkMark();
+        Executor executor = ParallelTaskProcessor.executor(options);
+        // nodes added during or after the execution belong to later executions only
+        List<Node<?>> executed = new ArrayList<>(nodes);
+        int size = executed.size();
+        long[] startNanos = new long[size];
+        long[] endNanos = new long[size];
+        CallProfiler profiler = CallProfiler.of(options, size, start);
+        List<CompletableFuture<Object>> futures = new ArrayList<>(size);
+        for (Node<?> node : executed) {
+            futures.add(schedule(node, futures, executor, options, startNanos, endNanos, profiler));
+        }
+        try {
+            AsyncTasks.await(futures, options, start, forkMark);
+        } finally {
+            if (Objects.nonNull(profiler)) {
+                profiler.report(criticalPath(executed, node -> endNanos[node.index] == 0 ? -1 : endNanos[node.index] - start));
+            }
+        }
+        return new Result(start, executed, futures, startNanos, endNanos);
+    }
+
+    /**
+     * Starting from the task which finished last, walk back through the dependency which finished last
+     *
+     * @param executed nodes of the execution
+     * @param finishOf when a task finished, -1 if it did not
+     * @return indexes of the tasks of the path, from its first task to its last one
+     */
+    private static List<Integer> criticalPath(List<Node<?>> executed, ToLongFunction<Node<?>> finishOf) {
+        Node<?> last = null;
+        for (Node<?> node : executed) {
+            if (Objects.isNull(last) || finishOf.applyAsLong(node) > finishOf.applyAsLong(last)) {
+                last = node;
+            }
+        }
+        List<Integer> path = new ArrayList<>();
+        while (Objects.nonNull(last)) {
+            path.add(last.index);
+            Node<?> previous = null;
+            for (Node<?> dep : last.deps) {
+                if (Objects.isNull(previous) || finishOf.applyAsLong(dep) > finishOf.applyAsLong(previous)) {
+                    previous = dep;
+                }
+            }
+            last = previous;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private <T> Node<T> addNode(String name, List<Node<?>> deps, Function<Object[], ? extends T> body) {
+        Objects.requireNonNull(name);
+        for (Node<?> dep : deps) {
+            if (Objects.isNull(dep) || dep.graph != this) {
+                throw new IllegalArgumentException("dependency of " + name + " is not a node of this graph");
+            }
+        }
+        Node<T> node = new Node<>(this, nodes.size(), name, deps, body);
+        nodes.add(node);
+        return node;
+    }
+
+    private CompletableFuture<Object> schedule(Node<?> node, List<CompletableFuture<Object>> scheduled,
+                                               Executor executor, ProcOptions options,
+                                               long[] startNanos, long[] endNanos, CallProfiler profiler) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture<?>[] deps = new CompletableFuture[node.deps.size()];
+        for (int i = 0; i < deps.length; i++) {
+            deps[i] = scheduled.get(node.deps.get(i).index);
+        }
+        CompletableFuture.allOf(deps).whenComplete((v, t) -> {
+            if (Objects.nonNull(t)) {
+                result.completeExceptionally(t instanceof CompletionException && Objects.nonNull(t.getCause())
+                        ? t.getCause() : t);
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            Object[] args = new Object[deps.length];
+            for (int i = 0; i < deps.length; i++) {
+                args[i] = deps[i].join();
+            }
+            Supplier<Object> body = () -> {
+                startNanos[node.index] = System.nanoTime();
+                try {
+                    return node.body.apply(args);
+                } finally {
+                    endNanos[node.index] = System.nanoTime();
+                }
+            };
+            if (Objects.nonNull(profiler)) {
+                body = profiler.wrap(node.index, node.name, body);
+            }
+            CompletableFuture<Object> task = AsyncTasks.supplyAsync(body, executor, options.getTaskTimeout());
+            task.whenComplete((r, e) -> {
+                if (Objects.nonNull(e)) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(r);
+                }
+            });
+            result.whenComplete((r, e) -> {
+                if (Objects.nonNull(e)) {
+                    task.cancel(true);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * A task of the graph, holding no state of any execution
+     *
+     * @param <T> result type
+     */
+    public static class Node<T> {
+
+        private final TaskGraph graph;
+
+        private final int index;
+
+        @Getter
+        private final String name;
+
+        private final List<Node<?>> deps;
+
+        private final Function<Object[], ? extends T> body;
+
+        private Node(TaskGraph graph, int index, String name, List<Node<?>> deps, Function<Object[], ? extends T> body) {
+            this.graph = graph;
+            this.index = index;
+            this.name = name;
+            this.deps = deps;
+            this.body = body;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Timing of a task in an execution, offsets are relative to the start of the execution
+     */
+    @Getter
+    public static class NodeTiming {
+
+        private final String name;
+
+        /**
+         * When the task started running, -1 if it never ran
+         */
+        private final long startOffsetNanos;
+
+        /**
+         * How long the task ran, -1 if it never ran or did not finish
+         */
+        private final long runNanos;
+
+        NodeTiming(String name, long startOffsetNanos, long runNanos) {
+            this.name = name;
+            this.startOffsetNanos = startOffsetNanos;
+            this.runNanos = runNanos;
+        }
+
+        /**
+         * @return when the task finished, -1 if it never ran or did not finish
+         */
+        public long getEndOffsetNanos() {
+            return runNanos < 0 ? -1 : startOffsetNanos + runNanos;
+        }
+
+        @Override
+        public String toString() {
+            return name + "[start=" + startOffsetNanos / 1000_000 + "ms, run=" + runNanos / 1000_000 + "ms]";
+        }
+    }
+
+    /**
+     * Results and timings of an execution
+     */
+    public class Result {
+
+        @Getter
+        private final long elapsedNanos;
+
+        /**
+         * Nodes of the graph at the time of the execution
+         */
+        private final List<Node<?>> executed;
+
+        private final List<CompletableFuture<Object>> futures;
+
+        private final List<NodeTiming> timings;
+
+        private Result(long start, List<Node<?>> executed, List<CompletableFuture<Object>> futures,
+                       long[] startNanos, long[] endNanos) {
+            this.elapsedNanos = System.nanoTime() - start;
+            this.executed = executed;
+            this.futures = futures;
+            this.timings = new ArrayList<>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                long startOffset = startNanos[i] == 0 ? -1 : startNanos[i] - start;
+                long run = startNanos[i] == 0 || endNanos[i] == 0 ? -1 : endNanos[i] - startNanos[i];
+                timings.add(new NodeTiming(executed.get(i).name, startOffset, run));
+            }
+        }
+
+        /**
+         * @param node a node of the graph
+         * @param <T>  result type
+         * @return result of the node, null if it failed or did not finish
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T get(Node<T> node) {
+            CompletableFuture<Object> future = futures.get(checkNode(node).index);
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                return (T) future.join();
+            }
+            return null;
+        }
+
+        /**
+         * @param node a node of the graph
+         * @return timing of the node
+         */
+        public NodeTiming getTiming(Node<?> node) {
+            return timings.get(checkNode(node).index);
+        }
+
+        /**
+         * @return timings of every node, in the order they were added
+         */
+        public List<NodeTiming> getTimings() {
+            return Collections.unmodifiableList(timings);
+        }
+
+        /**
+         * The chain of tasks which determined the latency of the execution: starting from the task which
+         * finished last, walk back through the dependency which finished last
+         *
+         * @return timings of the critical path, from its first task to its last one
+         */
+        public List<NodeTiming> getCriticalPath() {
+            List<NodeTiming> path = new ArrayList<>();
+            for (int index : criticalPath(executed, this::finishOf)) {
+                path.add(timings.get(index));
+            }
+            return path;
+        }
+
+        private long finishOf(Node<?> node) {
+            return timings.get(node.index).getEndOffsetNanos();
+        }
+
+        private Node<?> checkNode(Node<?> node) {
+            if (Objects.isNull(node) || node.graph != TaskGraph.this) {
+                throw new IllegalArgumentException("not a node of this graph: " + node);
+            }
+            if (node.index >= executed.size()) {
+                throw new IllegalArgumentException("node added after the execution: " + node);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Function of three arguments
+     */
+    @FunctionalInterface
+    public interface TriFunction<A, B, C, R> {
+        R apply(A a, B b, C c);
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Any number of independent tasks of different types, run in parallel and read back through typed handles.
+ * <p>
+ * Each result stays in the future of its own task, so completion threads never share mutable state.
+ * <pre>{@code
+ * TaskGroup group = new TaskGroup();
+ * TaskGroup.Handle<User> user = group.add(() -> userService.get(userId));
+ * TaskGroup.Handle<Config> config = group.add(() -> configService.get());
+ * group.join();
+ * render(user.get(), config.get());
+ * }</pre>
+ * A group is meant to be filled and joined by a single thread, and joined once.
+ */
+public class TaskGroup {
+
+    private final List<Supplier<?>> suppliers = new ArrayList<>();
+
+    private final List<Handle<?>> handles = new ArrayList<>();
+
+    private boolean joined;
+
+    /**
+     * Add a task
+     *
+     * @param supplier method handle
+     * @param <T>      result type
+     * @return the handle giving the result of the task once the group is joined
+     */
+    public <T> Handle<T> add(Supplier<T> supplier) {
+        Objects.requireNonNull(supplier);
+        if (joined) {
+            throw new IllegalStateException("group already joined");
+        }
+        Handle<T> handle = new Handle<>();
+        suppliers.add(supplier);
+        handles.add(handle);
+        return handle;
+    }
+
+    /**
+     * Run every task on the default backend and wait for all of them
+     *
+     * @throws CompletionException if a task fails
+     */
+    public void join() {
+        join(ProcOptions.DEFAULT);
+    }
+
+    /**
+     * Run every task and wait for them as the options say
+     *
+     * @param options backend, bulkhead, deadline, task timeout, failure policy and listener
+     * @throws CompletionException if a task fails or the deadline passes, unless {@link ProcPolicy#BEST_EFFORT}
+     */
+    @SuppressWarnings("unchecked")
+    public void join(ProcOptions options) {
+        if (joined) {
+            throw new IllegalStateException("group already joined");
+        }
+        joined = true;
+        long start = System.nanoTime();
+        long forkMark = WorkStealingPools.forkMark();
+        CallProfiler profiler = CallProfiler.of(options, suppliers.size(), start);
+        List<CompletableFuture<?>> futures = new ArrayList<>(suppliers.size());
+        for (int i = 0; i < suppliers.size(); i++) {
+            Handle<Object> handle = (Handle<Object>) handles.get(i);
+            Supplier<Object> supplier = (Supplier<Object>) suppliers.get(i);
+            if (Objects.nonNull(profiler)) {
+                supplier = profiler.wrap(i, supplier, supplier);
+            }
+            handle.future = AsyncTasks.supplyAsync(supplier, ParallelTaskProcessor.executor(options),
+                    options.getTaskTimeout());
+            futures.add(handle.future);
+        }
+        try {
+            AsyncTasks.await(futures, options, start, forkMark);
+        } finally {
+            if (Objects.nonNull(profiler)) {
+                profiler.report();
+            }
+        }
+    }
+
+    /**
+     * Typed access to the result of a task
+     *
+     * @param <T> result type
+     */
+    public static class Handle<T> {
+
+        private CompletableFuture<T> future;
+
+        private Handle() {
+        }
+
+        /**
+         * @return result of the task, null if it failed or did not finish with {@link ProcPolicy#BEST_EFFORT}
+         * @throws IllegalStateException if the group has not been joined
+         */
+        public T get() {
+            if (Objects.isNull(future)) {
+                throw new IllegalStateException("group not joined yet");
+            }
+            return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+        }
+
+        /**
+         * @return whether the task completed normally
+         */
+        public boolean isSuccess() {
+            return Objects.nonNull(future) && future.isDone() && !future.isCompletedExceptionally();
+        }
+    }
+}
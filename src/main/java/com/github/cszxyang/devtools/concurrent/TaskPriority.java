@@ -0,0 +1,20 @@
+package com.github.cszxyang.devtools.concurrent;
+
+/**
+ * Class of a call on the {@link ExecutionBackend#WORK_STEALING} backend, each class runs in its own pool.
+ * <p>
+ * Classes isolate work rather than order it, they do not give interactive work precedence on the CPU.
+ */
+public enum TaskPriority {
+
+    /**
+     * Latency sensitive work, such as serving a request
+     */
+    INTERACTIVE,
+
+    /**
+     * Throughput work, such as jobs and exports, confined to a smaller pool so that it never queues ahead
+     * of interactive work
+     */
+    BATCH
+}
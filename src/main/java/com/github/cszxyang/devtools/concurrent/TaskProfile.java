@@ -0,0 +1,71 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import lombok.Getter;
+
+/**
+ * Timing of a task in a profiled call, offsets are relative to the start of the call.
+ * <p>
+ * A task of a keyed call which was served by the load of another call or by the cache did not run in this call,
+ * it only has an end.
+ */
+@Getter
+public class TaskProfile {
+
+    /**
+     * Position of the task in the call
+     */
+    private final int index;
+
+    /**
+     * What the task runs: the supplier, the key of a keyed call or the node name of a graph
+     */
+    private final Object source;
+
+    /**
+     * When the task was submitted
+     */
+    private final long submitOffsetNanos;
+
+    /**
+     * How long the task waited for a thread, -1 if it never ran
+     */
+    private final long queueNanos;
+
+    /**
+     * How long the task ran, -1 if it never ran or did not finish
+     */
+    private final long runNanos;
+
+    /**
+     * When the task finished, -1 if it did not finish
+     */
+    private final long endOffsetNanos;
+
+    /**
+     * Kind of thread which ran the task, null if it never ran
+     */
+    private final ThreadKind threadKind;
+
+    /**
+     * Name of the thread which ran the task, null if it never ran
+     */
+    private final String threadName;
+
+    TaskProfile(int index, Object source, long submitOffsetNanos, long queueNanos, long runNanos,
+                long endOffsetNanos, ThreadKind threadKind, String threadName) {
+        this.index = index;
+        this.source = source;
+        this.submitOffsetNanos = submitOffsetNanos;
+        this.queueNanos = queueNanos;
+        this.runNanos = runNanos;
+        this.endOffsetNanos = endOffsetNanos;
+        this.threadKind = threadKind;
+        this.threadName = threadName;
+    }
+
+    @Override
+    public String toString() {
+        return index + ":" + source + "[queue=" + queueNanos / 1000_000 + "ms, run=" + runNanos / 1000_000
+                + "ms, thread=" + threadKind + "]";
+    }
+}
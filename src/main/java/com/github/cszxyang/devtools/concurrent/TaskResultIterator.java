@@ -0,0 +1,138 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Iterates over the results of a series of suppliers in the order they complete,
+ * or in the order they were submitted when created as ordered.
+ * <p>
+ * At most {@code window} suppliers are running or holding an unconsumed result at any time,
+ * a new supplier is only submitted after the consumer has taken a result, which gives natural
+ * backpressure to a slow consumer. Null results are skipped, the same as {@code procAsync}.
+ * If a supplier fails, {@link #next()} rethrows its exception wrapped in a {@link CompletionException}.
+ * Closing the iterator cancels the suppliers which are still running.
+ * <p>
+ * Instances are not thread safe and are meant to be consumed by a single thread.
+ *
+ * @param <R> result type
+ */
+public class TaskResultIterator<R> implements Iterator<R>, AutoCloseable {
+
+    private final Iterator<? extends Supplier<R>> source;
+
+    private final Executor executor;
+
+    private final int window;
+
+    private final Duration taskTimeout;
+
+    private final boolean ordered;
+
+    private final Deque<CompletableFuture<R>> submitted = new ArrayDeque<>();
+
+    private final BlockingQueue<CompletableFuture<R>> completed = new LinkedBlockingQueue<>();
+
+    private final Set<CompletableFuture<R>> running = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private boolean closed;
+
+    private R next;
+
+    TaskResultIterator(Iterator<? extends Supplier<R>> source, Executor executor, int window, Duration taskTimeout) {
+        this(source, executor, window, taskTimeout, false);
+    }
+
+    TaskResultIterator(Iterator<? extends Supplier<R>> source, Executor executor, int window, Duration taskTimeout,
+                       boolean ordered) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        this.source = source;
+        this.executor = executor;
+        this.window = window;
+        this.taskTimeout = taskTimeout;
+        this.ordered = ordered;
+        fill();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (Objects.isNull(next)) {
+            if (running.isEmpty()) {
+                return false;
+            }
+            next = take();
+        }
+        return true;
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        R r = next;
+        next = null;
+        return r;
+    }
+
+    /**
+     * Stop submitting the remaining suppliers and cancel the ones which are still running.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        AsyncTasks.cancelAll(running);
+        running.clear();
+        submitted.clear();
+        completed.clear();
+    }
+
+    private R take() {
+        CompletableFuture<R> future;
+        try {
+            future = ordered ? submitted.poll() : completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new CompletionException(e);
+        }
+        try {
+            // an ordered head may still be running, so only release its slot once it is done
+            return future.join();
+        } finally {
+            running.remove(future);
+            fill();
+        }
+    }
+
+    private void fill() {
+        while (!closed && running.size() < window && source.hasNext()) {
+            Supplier<R> supplier = source.next();
+            if (Objects.isNull(supplier)) {
+                continue;
+            }
+            CompletableFuture<R> future = AsyncTasks.supplyAsync(supplier, executor, taskTimeout);
+            running.add(future);
+            if (ordered) {
+                submitted.add(future);
+            } else {
+                future.whenComplete((r, t) -> completed.add(future));
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Kind of thread which ran a task of a {@code procAsync} call.
+ */
+public enum ThreadKind {
+
+    /**
+     * A thread of a bulkhead pool
+     */
+    POOL,
+
+    /**
+     * The thread of the call itself, through {@code CallerRunsPolicy} or by helping a work-stealing pool
+     */
+    CALLER,
+
+    /**
+     * A virtual thread
+     */
+    VIRTUAL,
+
+    /**
+     * A worker of a work-stealing pool
+     */
+    FORK_JOIN;
+
+    static ThreadKind of(Thread thread, Thread caller) {
+        if (thread == caller) {
+            return CALLER;
+        }
+        if (thread instanceof ForkJoinWorkerThread) {
+            return FORK_JOIN;
+        }
+        return VirtualThreads.isVirtual(thread) ? VIRTUAL : POOL;
+    }
+}
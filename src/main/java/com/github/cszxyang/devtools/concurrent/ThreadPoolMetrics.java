@@ -0,0 +1,167 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters, gauges and latency histograms of a {@link VisualThreadPoolTaskExecutor}.
+ * <p>
+ * Recording only touches striped counters and atomics, it neither allocates nor takes the main lock
+ * of the pool, so it can stay on in production. Reading is meant for periodic sampling or JMX.
+ */
+public class ThreadPoolMetrics implements ThreadPoolMetricsMXBean {
+
+    private final LongAdder submitted = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder callerRuns = new LongAdder();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+
+    private final LatencyHistogram runTime = new LatencyHistogram();
+
+    private volatile ThreadPoolExecutor executor;
+
+    void bind(ThreadPoolExecutor executor) {
+        this.executor = executor;
+    }
+
+    void onSubmit() {
+        submitted.increment();
+    }
+
+    void onStart(long queueWaitNanos) {
+        active.incrementAndGet();
+        queueWait.record(queueWaitNanos);
+    }
+
+    void onEnd(long runNanos) {
+        active.decrementAndGet();
+        runTime.record(runNanos);
+        completed.increment();
+    }
+
+    /**
+     * Wrap a rejection handler so that rejections, and tasks run by the caller because of them, are counted and timed
+     *
+     * @param handler rejection handler of the pool
+     * @return the counting handler
+     */
+    RejectedExecutionHandler countRejections(RejectedExecutionHandler handler) {
+        boolean callerRunsPolicy = handler instanceof ThreadPoolExecutor.CallerRunsPolicy;
+        return (r, e) -> {
+            rejected.increment();
+            if (!callerRunsPolicy || e.isShutdown()) {
+                handler.rejectedExecution(r, e);
+                return;
+            }
+            // run by the caller, outside of the hooks of the pool
+            callerRuns.increment();
+            long start = System.nanoTime();
+            onStart(r instanceof StampedTask ? start - ((StampedTask) r).getSubmitNanos() : 0);
+            try {
+                handler.rejectedExecution(r, e);
+            } finally {
+                onEnd(System.nanoTime() - start);
+            }
+        };
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencyHistogram getRunTime() {
+        return runTime;
+    }
+
+    @Override
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    @Override
+    public int getQueueSize() {
+        ThreadPoolExecutor e = executor;
+        return e == null ? 0 : e.getQueue().size();
+    }
+
+    /**
+     * Takes the main lock of the pool, only meant for sampling
+     */
+    @Override
+    public int getPoolSize() {
+        ThreadPoolExecutor e = executor;
+        return e == null ? 0 : e.getPoolSize();
+    }
+
+    @Override
+    public long getQueueWaitMeanMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(queueWait.getMeanNanos());
+    }
+
+    @Override
+    public long getQueueWaitP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(queueWait.getPercentileNanos(50));
+    }
+
+    @Override
+    public long getQueueWaitP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(queueWait.getPercentileNanos(99));
+    }
+
+    @Override
+    public long getRunTimeMeanMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(runTime.getMeanNanos());
+    }
+
+    @Override
+    public long getRunTimeP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(runTime.getPercentileNanos(50));
+    }
+
+    @Override
+    public long getRunTimeP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(runTime.getPercentileNanos(99));
+    }
+
+    @Override
+    public String toString() {
+        return "submitted: " + getSubmittedCount()
+                + ", completed: " + getCompletedCount()
+                + ", rejected: " + getRejectedCount()
+                + ", callerRuns: " + getCallerRunsCount()
+                + ", active: " + getActiveCount()
+                + ", queueSize: " + getQueueSize()
+                + ", queueWaitP99: " + getQueueWaitP99Micros() + "us"
+                + ", runTimeP99: " + getRunTimeP99Micros() + "us";
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.cszxyang.devtools.concurrent;
+
+/**
+ * JMX view of {@link ThreadPoolMetrics}, durations are in microseconds.
+ */
+public interface ThreadPoolMetricsMXBean {
+
+    long getSubmittedCount();
+
+    long getCompletedCount();
+
+    long getRejectedCount();
+
+    long getCallerRunsCount();
+
+    int getActiveCount();
+
+    int getQueueSize();
+
+    int getPoolSize();
+
+    long getQueueWaitMeanMicros();
+
+    long getQueueWaitP50Micros();
+
+    long getQueueWaitP99Micros();
+
+    long getRunTimeMeanMicros();
+
+    long getRunTimeP50Micros();
+
+    long getRunTimeP99Micros();
+}
@@ -0,0 +1,86 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Looks up the virtual-thread-per-task executor of JDK 21+ reflectively, so the library still runs on JDK 8.
+ */
+final class VirtualThreads {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private static final ExecutorService EXECUTOR = create();
+
+    /**
+     * Thread.isVirtual, null if the JVM has no virtual threads
+     */
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return whether the JVM can run suppliers on virtual threads
+     */
+    static boolean isSupported() {
+        return Objects.nonNull(EXECUTOR);
+    }
+
+    /**
+     * @return the virtual-thread-per-task executor, null if the JVM has no virtual threads
+     */
+    static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * @param thread a thread
+     * @return whether the thread is virtual
+     */
+    static boolean isVirtual(Thread thread) {
+        if (Objects.isNull(IS_VIRTUAL)) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual",
+                    MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService create() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, "parallel_supplier_vt-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            ExecutorService executor = (ExecutorService) newExecutor.invoke(null, factory);
+            logger.info("Virtual thread backend available");
+            return executor;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            logger.info("Virtual threads are not supported by this JVM, falling back to the thread pool");
+            return null;
+        }
+    }
+}
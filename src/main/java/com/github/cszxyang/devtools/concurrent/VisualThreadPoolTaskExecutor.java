@@ -2,65 +2,400 @@ package com.github.cszxyang.devtools.concurrent;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import org.springframework.util.concurrent.ListenableFuture;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * A ThreadPoolTaskExecutor recording {@link ThreadPoolMetrics} of every task.
+ * <p>
+ * The metrics can be pulled through {@link #getMetrics()}, read through JMX under
+ * {@code com.github.cszxyang.devtools:type=ThreadPool,name=<threadNamePrefix>},
+ * or logged periodically with {@link #setMetricsLogIntervalSeconds(int)}.
+ * <p>
+ * With an {@link #setAdaptiveSizing(AdaptiveSizingPolicy) adaptive sizing policy}, the core size of the pool
+ * follows the load within the bounds of the policy instead of staying at its configured value.
+ * <p>
+ * With a {@link #setSlowTaskThresholdMillis(long) slow task threshold}, a {@link SlowTaskWatchdog} reports
+ * the tasks running past it, with stack samples of their threads.
+ * <p>
+ * Tasks are measured by the hooks of the pool itself rather than by a task decorator, so that submitting neither
+ * wraps the task nor goes through the decorated task map of the parent class. Tasks of {@link ParallelTaskProcessor}
+ * and of {@code submit} carry their own submission time; other runnables are stamped by a small wrapper.
+ */
 public class VisualThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
 
     private final Logger logger = LoggerFactory.getLogger(VisualThreadPoolTaskExecutor.class);
 
-    private void showThreadPoolInfo(String prefix) {
-        ThreadPoolExecutor executor = getThreadPoolExecutor();
-        logger.info("{}, {}, taskCount: {}, completedTaskCount: {}, activeCount: {}, queueSize: {}",
-                this.getThreadNamePrefix(),
-                prefix,
-                executor.getTaskCount(),
-                executor.getCompletedTaskCount(),
-                executor.getActiveCount(),
-                executor.getQueue().size());
+    /**
+     * Start of the task running on the current worker, for its run time
+     */
+    private static final ThreadLocal<long[]> START_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final ThreadPoolMetrics metrics = new ThreadPoolMetrics();
+
+    private TaskDecorator taskDecorator;
+
+    private int queueCapacity = Integer.MAX_VALUE;
+
+    private boolean allowCoreThreadTimeOut;
+
+    private volatile MeteredThreadPoolExecutor meteredExecutor;
+
+    private int metricsLogIntervalSeconds;
+
+    private ObjectName objectName;
+
+    private ScheduledFuture<?> metricsLogging;
+
+    private AdaptiveSizingPolicy adaptiveSizing;
+
+    private ScheduledFuture<?> adaptiveSizer;
+
+    private long slowTaskThresholdMillis;
+
+    private boolean captureSubmissionStack;
+
+    private SlowTaskWatchdog watchdog;
+
+    private ScheduledFuture<?> watchdogSchedule;
+
+    /**
+     * Decorators are applied at submission, their own cost counts as run time
+     */
+    @Override
+    public void setTaskDecorator(TaskDecorator taskDecorator) {
+        this.taskDecorator = taskDecorator;
+    }
+
+    @Override
+    public void setQueueCapacity(int queueCapacity) {
+        super.setQueueCapacity(queueCapacity);
+        this.queueCapacity = queueCapacity;
     }
 
-    public VisualThreadPoolTaskExecutor() {
-        super();
+    @Override
+    public void setAllowCoreThreadTimeOut(boolean allowCoreThreadTimeOut) {
+        super.setAllowCoreThreadTimeOut(allowCoreThreadTimeOut);
+        this.allowCoreThreadTimeOut = allowCoreThreadTimeOut;
+    }
+
+    @Override
+    public void setCorePoolSize(int corePoolSize) {
+        super.setCorePoolSize(corePoolSize);
+        ThreadPoolExecutor executor = meteredExecutor;
+        if (Objects.nonNull(executor)) {
+            executor.setCorePoolSize(corePoolSize);
+        }
     }
 
     @Override
-    public void execute(Runnable task) {
-        showThreadPoolInfo("do execute");
-        super.execute(task);
+    public void setMaxPoolSize(int maxPoolSize) {
+        super.setMaxPoolSize(maxPoolSize);
+        ThreadPoolExecutor executor = meteredExecutor;
+        if (Objects.nonNull(executor)) {
+            executor.setMaximumPoolSize(maxPoolSize);
+        }
     }
 
     @Override
-    public void execute(Runnable task, long startTimeout) {
-        showThreadPoolInfo("do execute");
-        super.execute(task, startTimeout);
+    public void setKeepAliveSeconds(int keepAliveSeconds) {
+        super.setKeepAliveSeconds(keepAliveSeconds);
+        ThreadPoolExecutor executor = meteredExecutor;
+        if (Objects.nonNull(executor)) {
+            executor.setKeepAliveTime(keepAliveSeconds, TimeUnit.SECONDS);
+        }
     }
 
     @Override
-    public Future<?> submit(Runnable task) {
-        showThreadPoolInfo("do execute");
-        return super.submit(task);
+    public ThreadPoolExecutor getThreadPoolExecutor() throws IllegalStateException {
+        ThreadPoolExecutor executor = meteredExecutor;
+        if (Objects.isNull(executor)) {
+            throw new IllegalStateException("VisualThreadPoolTaskExecutor not initialized");
+        }
+        return executor;
     }
 
     @Override
-    public <T> Future<T> submit(Callable<T> task) {
-        showThreadPoolInfo("do submit");
-        return super.submit(task);
+    public int getPoolSize() {
+        ThreadPoolExecutor executor = meteredExecutor;
+        return Objects.isNull(executor) ? getCorePoolSize() : executor.getPoolSize();
+    }
+
+    @Override
+    public int getActiveCount() {
+        ThreadPoolExecutor executor = meteredExecutor;
+        return Objects.isNull(executor) ? 0 : executor.getActiveCount();
+    }
+
+    /**
+     * Log a metrics summary every so many seconds, 0 (the default) disables it
+     *
+     * @param metricsLogIntervalSeconds interval in seconds
+     */
+    public void setMetricsLogIntervalSeconds(int metricsLogIntervalSeconds) {
+        this.metricsLogIntervalSeconds = metricsLogIntervalSeconds;
+    }
+
+    /**
+     * Let the core size of the pool follow the load, null (the default) keeps it fixed
+     *
+     * @param adaptiveSizing bounds and thresholds of the sizing
+     */
+    public void setAdaptiveSizing(AdaptiveSizingPolicy adaptiveSizing) {
+        this.adaptiveSizing = adaptiveSizing;
+    }
+
+    /**
+     * Report tasks running for longer than this, 0 (the default) disables the watchdog
+     *
+     * @param slowTaskThresholdMillis threshold in milliseconds
+     */
+    public void setSlowTaskThresholdMillis(long slowTaskThresholdMillis) {
+        this.slowTaskThresholdMillis = slowTaskThresholdMillis;
+    }
+
+    /**
+     * Capture a stack at each submission, so that slow tasks are reported with the exact line which submitted them.
+     * It costs a stack walk per submission, so it is off by default and the class of the task is reported instead.
+     *
+     * @param captureSubmissionStack capture a stack at each submission or not
+     */
+    public void setCaptureSubmissionStack(boolean captureSubmissionStack) {
+        this.captureSubmissionStack = captureSubmissionStack;
+    }
+
+    /**
+     * @return the watchdog of the pool, null if there is no slow task threshold
+     */
+    public SlowTaskWatchdog getWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * @return metrics of the pool
+     */
+    public ThreadPoolMetrics getMetrics() {
+        return metrics;
     }
 
     @Override
-    public ListenableFuture<?> submitListenable(Runnable task) {
-        showThreadPoolInfo("do submitListenable");
-        return super.submitListenable(task);
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory,
+                                                 RejectedExecutionHandler rejectedExecutionHandler) {
+        if (slowTaskThresholdMillis > 0) {
+            watchdog = new SlowTaskWatchdog(getThreadNamePrefix(),
+                    TimeUnit.MILLISECONDS.toNanos(slowTaskThresholdMillis), 32);
+            long period = Math.max(10, slowTaskThresholdMillis / 2);
+            watchdogSchedule = Sampler.SCHEDULER.scheduleWithFixedDelay(watchdog, period, period, TimeUnit.MILLISECONDS);
+        }
+        MeteredThreadPoolExecutor executor = new MeteredThreadPoolExecutor(getCorePoolSize(), getMaxPoolSize(),
+                getKeepAliveSeconds(), createQueue(queueCapacity), threadFactory,
+                metrics.countRejections(rejectedExecutionHandler));
+        if (allowCoreThreadTimeOut) {
+            executor.allowCoreThreadTimeOut(true);
+        }
+        meteredExecutor = executor;
+        metrics.bind(executor);
+        registerMBean();
+        if (metricsLogIntervalSeconds > 0) {
+            metricsLogging = Sampler.SCHEDULER.scheduleAtFixedRate(
+                    () -> logger.info("{}, {}", getThreadNamePrefix(), metrics),
+                    metricsLogIntervalSeconds, metricsLogIntervalSeconds, TimeUnit.SECONDS);
+        }
+        if (Objects.nonNull(adaptiveSizing)) {
+            adaptiveSizer = Sampler.SCHEDULER.scheduleWithFixedDelay(new AdaptivePoolSizer(this, adaptiveSizing),
+                    adaptiveSizing.getIntervalMillis(), adaptiveSizing.getIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        return executor;
     }
 
     @Override
-    public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
-        showThreadPoolInfo("do submitListenable");
-        return super.submitListenable(task);
+    public void shutdown() {
+        if (Objects.nonNull(metricsLogging)) {
+            metricsLogging.cancel(false);
+        }
+        if (Objects.nonNull(adaptiveSizer)) {
+            adaptiveSizer.cancel(false);
+        }
+        if (Objects.nonNull(watchdogSchedule)) {
+            watchdogSchedule.cancel(false);
+        }
+        unregisterMBean();
+        super.shutdown();
+    }
+
+    private static Object siteOf(Runnable task) {
+        if (task instanceof StampingTask && Objects.nonNull(((StampingTask) task).site)) {
+            return ((StampingTask) task).site;
+        }
+        return task instanceof SourcedTask ? ((SourcedTask) task).getSource().getClass() : task.getClass();
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.github.cszxyang.devtools:type=ThreadPool,name="
+                    + ObjectName.quote(getThreadNamePrefix()));
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+            objectName = name;
+        } catch (JMException | RuntimeException e) {
+            logger.warn("Failed to register thread pool metrics of {}", getThreadNamePrefix(), e);
+        }
+    }
+
+    private void unregisterMBean() {
+        if (Objects.isNull(objectName)) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException | RuntimeException e) {
+            logger.warn("Failed to unregister thread pool metrics of {}", getThreadNamePrefix(), e);
+        }
+        objectName = null;
+    }
+
+    /**
+     * Records the metrics of each task in the hooks of the pool, on the worker running it
+     */
+    private class MeteredThreadPoolExecutor extends ThreadPoolExecutor {
+
+        MeteredThreadPoolExecutor(int corePoolSize, int maxPoolSize, int keepAliveSeconds,
+                                  BlockingQueue<Runnable> queue, ThreadFactory threadFactory,
+                                  RejectedExecutionHandler rejectedExecutionHandler) {
+            super(corePoolSize, maxPoolSize, keepAliveSeconds, TimeUnit.SECONDS, queue, threadFactory,
+                    rejectedExecutionHandler);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            Runnable task = Objects.isNull(taskDecorator) ? command : taskDecorator.decorate(command);
+            metrics.onSubmit();
+            if (captureSubmissionStack && Objects.nonNull(watchdog)) {
+                task = new StampingTask(task, new Throwable("submitted here"));
+            } else if (!(task instanceof StampedTask)) {
+                task = new StampingTask(task, null);
+            }
+            super.execute(task);
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+            return new StampedFutureTask<>(runnable, value);
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+            return new StampedFutureTask<>(callable);
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            long start = System.nanoTime();
+            metrics.onStart(start - ((StampedTask) r).getSubmitNanos());
+            if (Objects.nonNull(watchdog)) {
+                watchdog.onStart(siteOf(r), start);
+            }
+            START_NANOS.get()[0] = start;
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            if (Objects.nonNull(watchdog)) {
+                watchdog.onEnd();
+            }
+            metrics.onEnd(System.nanoTime() - START_NANOS.get()[0]);
+        }
+    }
+
+    /**
+     * Submission time of a runnable which does not carry its own, and the stack of its submission when captured
+     */
+    private static class StampingTask implements Runnable, StampedTask, SourcedTask {
+
+        private final Runnable task;
+
+        private final long submitNanos = System.nanoTime();
+
+        private final Throwable site;
+
+        StampingTask(Runnable task, Throwable site) {
+            this.task = task;
+            this.site = site;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public long getSubmitNanos() {
+            return task instanceof StampedTask ? ((StampedTask) task).getSubmitNanos() : submitNanos;
+        }
+
+        @Override
+        public Object getSource() {
+            return task instanceof SourcedTask ? ((SourcedTask) task).getSource() : task;
+        }
+    }
+
+    private static class StampedFutureTask<T> extends FutureTask<T> implements StampedTask, SourcedTask {
+
+        private final Object source;
+
+        private final long submitNanos = System.nanoTime();
+
+        StampedFutureTask(Runnable runnable, T value) {
+            super(runnable, value);
+            this.source = runnable;
+        }
+
+        StampedFutureTask(Callable<T> callable) {
+            super(callable);
+            this.source = callable;
+        }
+
+        @Override
+        public long getSubmitNanos() {
+            return submitNanos;
+        }
+
+        @Override
+        public Object getSource() {
+            return source;
+        }
+    }
+
+    /**
+     * Shared by every pool, only started once a pool logs its metrics or sizes itself
+     */
+    private static class Sampler {
+
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "thread_pool_metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 }
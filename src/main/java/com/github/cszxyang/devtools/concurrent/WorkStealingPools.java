@@ -0,0 +1,172 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+
+/**
+ * Work-stealing pools of the {@link ExecutionBackend#WORK_STEALING} backend, one per {@link TaskPriority}.
+ * <p>
+ * The classes are isolated rather than prioritized: each has its own pool, so interactive work never queues
+ * behind batch work and batch work can only occupy the threads of its smaller pool. Both pools still compete
+ * for the CPU on equal terms; the lower thread priority of the batch threads is a hint which Linux ignores
+ * by default.
+ * <p>
+ * A task submitted from a worker of the same pool, that is a nested fan-out, is forked onto the local queue
+ * of the worker, and the worker runs the children it can take back itself before blocking on them, instead
+ * of parking while they wait behind it. A call only helps with its own children, never with the tasks forked
+ * by an outer call which is waiting further up the stack.
+ */
+final class WorkStealingPools {
+
+    private static final ThreadLocal<Forks> FORKED = ThreadLocal.withInitial(Forks::new);
+
+    private WorkStealingPools() {
+    }
+
+    /**
+     * @param priority priority class
+     * @return the executor of the priority class, creating its pool on first use
+     */
+    static Executor executor(TaskPriority priority) {
+        return priority == TaskPriority.BATCH ? Batch.EXECUTOR : Interactive.EXECUTOR;
+    }
+
+    /**
+     * Mark the start of a call, so that it later only helps with the tasks it forks itself
+     *
+     * @return position of the next task forked by the current worker thread
+     */
+    static long forkMark() {
+        return Thread.currentThread() instanceof ForkJoinWorkerThread ? FORKED.get().top() : 0;
+    }
+
+    /**
+     * Run on the current worker thread the tasks forked since the mark which no other worker has stolen yet,
+     * latest first, called before blocking on them
+     * <p>
+     * Helping stops once the call is over, that is when it completes, fails or passes its deadline,
+     * so that the caller does not run children to completion only to discard them.
+     *
+     * @param mark     start of the call, from {@link #forkMark()}
+     * @param waiting  completion of the call
+     * @param deadline deadline of the call, null means no deadline
+     * @param start    start of the call, in {@link System#nanoTime()}
+     */
+    static void helpForked(long mark, Future<?> waiting, Duration deadline, long start) {
+        if (!(Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+            return;
+        }
+        Forks forks = FORKED.get();
+        ForkedTask task;
+        while (forks.top() > mark && !waiting.isDone()
+                && (Objects.isNull(deadline) || System.nanoTime() - start < deadline.toNanos())
+                && Objects.nonNull(task = forks.tasks.pollLast())) {
+            if (task.tryUnfork()) {
+                task.invoke();
+                if (task.command instanceof Future && ((Future<?>) task.command).isCancelled()) {
+                    // cancelled while run inline, by its timeout or a failing sibling, do not leak the interrupt
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    /**
+     * Tasks forked by a worker thread, positions count from its first fork so that they survive dropping
+     * finished tasks from the front
+     */
+    private static class Forks {
+
+        private final Deque<ForkedTask> tasks = new ArrayDeque<>();
+
+        private long dropped;
+
+        long top() {
+            return dropped + tasks.size();
+        }
+    }
+
+    /**
+     * Forked command, kept at hand to tell whether it was cancelled when run inline
+     */
+    private static class ForkedTask extends ForkJoinTask<Void> {
+
+        private final Runnable command;
+
+        ForkedTask(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public Void getRawResult() {
+            return null;
+        }
+
+        @Override
+        protected void setRawResult(Void value) {
+        }
+
+        @Override
+        protected boolean exec() {
+            command.run();
+            return true;
+        }
+    }
+
+    private static class WorkStealingExecutor implements Executor {
+
+        private final ForkJoinPool pool;
+
+        WorkStealingExecutor(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            Thread current = Thread.currentThread();
+            if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == pool) {
+                ForkedTask task = new ForkedTask(command);
+                Forks forks = FORKED.get();
+                // forget the children which have been stolen and finished meanwhile
+                while (!forks.tasks.isEmpty() && forks.tasks.peekFirst().isDone()) {
+                    forks.tasks.pollFirst();
+                    forks.dropped++;
+                }
+                forks.tasks.addLast(task);
+                task.fork();
+            } else {
+                pool.execute(ForkJoinTask.adapt(command));
+            }
+        }
+    }
+
+    private static ForkJoinPool newPool(String name, int parallelism, int threadPriority) {
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+            };
+            thread.setName("parallel_supplier_" + name + "-" + thread.getPoolIndex());
+            thread.setPriority(threadPriority);
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    private static class Interactive {
+
+        private static final Executor EXECUTOR = new WorkStealingExecutor(newPool("interactive",
+                Math.max(16, Runtime.getRuntime().availableProcessors() * 2), Thread.NORM_PRIORITY));
+    }
+
+    private static class Batch {
+
+        private static final Executor EXECUTOR = new WorkStealingExecutor(newPool("batch",
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2), Thread.NORM_PRIORITY - 2));
+    }
+}
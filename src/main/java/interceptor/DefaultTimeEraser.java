@@ -1,18 +1,28 @@
 package interceptor;
-import annotation.EraseDefaultTime;
 import annotation.EraseTarget;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
 import util.json.JsonUtils;
 
-import java.lang.reflect.Field;
 import java.sql.Statement;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -21,36 +31,48 @@ import java.util.concurrent.ConcurrentHashMap;
  * 对于日期类型数据，如果实际设值不在插入记录时设值，默认值记为 1970-01-01 00:00:00
  * 在查询的时候进行拦截处理，如果为默认日期则将之置空，避免给用户造成困惑
  * 被拦截的实体类使用 @EraseTarget 标记，被拦截的字段使用 @EraseDefaultTime 标记
+ * 其他类型的默认值（-1、0、空串等）使用 @EraseSentinel 标记，嵌套实体与实体集合使用 @EraseNested 标记
+ * 列表查询在结果集返回时逐行处理，游标查询与 ResultHandler 查询在每映射出一行时处理，流式导出不必物化结果集
+ * 可通过插件属性 scanPackages 或 {@link #precompute(Configuration)} 在启动时预先编译擦除计划，避免首次查询的反射开销
  *
  * @author yangzhaoxiong
  * @since  2022-03-23
  */
-@Intercepts(@Signature(method = "handleResultSets", type = ResultSetHandler.class, args = {Statement.class}))
+@Intercepts({
+        @Signature(method = "handleResultSets", type = ResultSetHandler.class, args = {Statement.class}),
+        @Signature(method = "handleCursorResultSets", type = ResultSetHandler.class, args = {Statement.class}),
+        @Signature(method = "query", type = Executor.class,
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(method = "query", type = Executor.class,
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class})
+})
 @Component
 @Slf4j
 public class DefaultTimeEraser implements Interceptor {
     /**
-     * 默认时间戳
+     * 插件属性，启动时扫描的实体类包名，多个包用逗号分隔
      */
-    private static final long DEFAULT_TIME_MILLIS;
+    public static final String SCAN_PACKAGES = "scanPackages";
     /**
-     * 出于反射性能考虑，缓存被拦截的实体类信息
+     * 出于反射性能考虑，缓存所有遇到过的结果类型的擦除计划
+     * 非 @EraseTarget 实体类也缓存为 {@link ErasurePlan#NONE}，判断只需一次查找
      */
-    private final Map<Class<?>, List<Field>> targetFieldCache = new ConcurrentHashMap<>();
-
-    static {
-        String defaultTimeStr = "1970-01-01 00:00:00";
-        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        LocalDateTime defaultDateTime = LocalDateTime.parse(defaultTimeStr, dateTimeFormatter);
-        Date defaultDate = Date.from(defaultDateTime.atZone(ZoneId.systemDefault()).toInstant());
-        DEFAULT_TIME_MILLIS = defaultDate.getTime();
-    }
+    private final Map<Class<?>, ErasurePlan> planCache = new ConcurrentHashMap<>();
 
     @Override
     @SuppressWarnings("unchecked")
     public Object intercept(Invocation invocation) throws Throwable {
         if (log.isDebugEnabled()) {
-            log.debug("DefaultTimeEraser intercepting...targetFieldCache={}", JsonUtils.toJson(targetFieldCache));
+            log.debug("DefaultTimeEraser intercepting...planCache={}", JsonUtils.toJson(planCache.keySet(), 2, 1024));
+        }
+        if (invocation.getTarget() instanceof Executor) {
+            // ResultHandler 查询的结果不经过返回值，只能在交给业务 ResultHandler 之前逐行处理
+            Object[] args = invocation.getArgs();
+            if (args[3] instanceof ResultHandler && !(args[3] instanceof ErasingResultHandler)) {
+                args[3] = new ErasingResultHandler((ResultHandler<Object>) args[3], new RowEraser(this));
+            }
+            return invocation.proceed();
         }
         Object object = invocation.proceed();
         try {
@@ -58,7 +80,9 @@ public class DefaultTimeEraser implements Interceptor {
                 return null;
             }
             if (object instanceof List) {
-                return replaceDefaultDate((List<Object>) object);
+                replaceDefaultDate((List<Object>) object);
+            } else if (object instanceof Cursor) {
+                return new ErasingCursor<>((Cursor<Object>) object, new RowEraser(this));
             }
         } catch (Throwable throwable) {
             log.error("DefaultTimeEraser intercept error", throwable);
@@ -67,100 +91,124 @@ public class DefaultTimeEraser implements Interceptor {
     }
 
     /**
-     * 覆盖默认时间
+     * 原地覆盖默认时间，不再复制结果集
      *
      * @param dataList MyBatis 查询出来的结果集
-     * @return 处理后的结果集
-     * @throws IllegalAccessException 反射异常
+     * @throws Throwable 字段读写异常
      */
-    private List<Object> replaceDefaultDate(List<Object> dataList) throws IllegalAccessException {
+    private void replaceDefaultDate(List<Object> dataList) throws Throwable {
         if (CollectionUtils.isEmpty(dataList)) {
-            return dataList;
+            return;
         }
-        // 结果集数据不会异构，只需要判断一次
-        boolean isDomain = isEraseTargetDomain(dataList.get(0));
-        List<Object> resultList = new ArrayList<>();
-        for (Object data : dataList) {
-            if (null == data) {
-                resultList.add(null);
-                continue;
+        RowEraser rowEraser = new RowEraser(this);
+        for (int i = 0, size = dataList.size(); i < size; i++) {
+            Object data = dataList.get(i);
+            Object erased = rowEraser.erase(data);
+            if (erased != data) {
+                dataList.set(i, erased);
             }
-            if (isDomain) {
-                Object result = handleDomainProperty(data);
-                resultList.add(result);
-            } else if (data instanceof Date) {
-                // 有可能只查单列
-                Date dateValue = (Date) data;
-                if (isDefaultDate(dateValue)) {
-                    resultList.add(null);
-                } else {
-                    resultList.add(data);
+        }
+    }
+
+    /**
+     * 获取类型的擦除计划，首次遇到该类型时编译
+     *
+     * @param dataClass 结果类型
+     * @return 擦除计划，非 @EraseTarget 实体类或没有需要擦除的字段时为 null
+     */
+    ErasurePlan planOf(Class<?> dataClass) {
+        ErasurePlan plan = planCache.get(dataClass);
+        if (null == plan) {
+            plan = planCache.computeIfAbsent(dataClass, DefaultTimeEraser::compilePlan);
+        }
+        return ErasurePlan.NONE == plan ? null : plan;
+    }
+
+    /**
+     * 扫描包下的 @EraseTarget 实体类并预先编译擦除计划
+     *
+     * @param basePackages 实体类所在的包
+     * @return 编译了擦除计划的实体类数量
+     */
+    public int precompute(String... basePackages) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(EraseTarget.class));
+        ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (String basePackage : basePackages) {
+            for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                try {
+                    types.add(ClassUtils.forName(candidate.getBeanClassName(), classLoader));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    log.warn("DefaultTimeEraser load class error, class={}", candidate.getBeanClassName(), e);
                 }
-            } else {
-                resultList.add(data);
             }
         }
-        return resultList;
+        return precompute(types);
     }
 
     /**
-     * 对于实体对象，遍历其属性集
+     * 根据 MyBatis 配置中全部 resultMap 的类型预先编译擦除计划，包括 resultType 生成的内联 resultMap
      *
-     * @param data 实体对象
-     * @return 处理后的实体对象
-     * @throws IllegalAccessException 反射异常
+     * @param configuration MyBatis 配置，需在全部 Mapper 加载完成后调用
+     * @return 编译了擦除计划的实体类数量
      */
-    private Object handleDomainProperty(Object data) throws IllegalAccessException {
-        Class<?> dataClass = data.getClass();
-        List<Field> fields = targetFieldCache.get(dataClass);
-        if (CollectionUtils.isEmpty(fields)) {
-            Field[] declaredFields = dataClass.getDeclaredFields();
-            for (Field declaredField : declaredFields) {
-                if (Date.class.equals(declaredField.getType()) && Objects.nonNull(declaredField.getAnnotation(EraseDefaultTime.class))) {
-                    fields.add(declaredField);
+    public int precompute(Configuration configuration) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        // StrictMap 中有歧义的短名称对应的不是 ResultMap，需逐个判断
+        for (Object resultMap : configuration.getResultMaps()) {
+            if (resultMap instanceof ResultMap) {
+                types.add(((ResultMap) resultMap).getType());
+            }
+        }
+        for (Object statement : configuration.getMappedStatements()) {
+            if (statement instanceof MappedStatement) {
+                for (ResultMap resultMap : ((MappedStatement) statement).getResultMaps()) {
+                    types.add(resultMap.getType());
                 }
             }
         }
-        for (Field field : fields) {
-            field.setAccessible(true);
-            Date dateValue = (Date) field.get(data);
-            if (isDefaultDate(dateValue)) {
-                field.set(data, null);
+        return precompute(types);
+    }
+
+    private int precompute(Set<Class<?>> types) {
+        int count = 0;
+        for (Class<?> type : types) {
+            if (null != planOf(type)) {
+                count++;
             }
         }
-        return data;
+        return count;
     }
 
     /**
-     * 判断是否为数据库实体类
+     * 编译结果类型的擦除计划
+     * 编译失败同样缓存为空计划，错误只记录一次，不会在每次查询或每一行重新编译
      *
-     * @param object 实体对象
-     * @return 是否为数据库实体类
+     * @param dataClass 结果类型
+     * @return 擦除计划，不需要擦除或编译失败时为 {@link ErasurePlan#NONE}
      */
-    private boolean isEraseTargetDomain(Object object) {
-        Class<?> dataClass = object.getClass();
-        if (targetFieldCache.containsKey(dataClass)) {
-            return true;
+    private static ErasurePlan compilePlan(Class<?> dataClass) {
+        if (!isEraseTargetDomain(dataClass)) {
+            return ErasurePlan.NONE;
         }
-        EraseTarget eraseTarget = dataClass.getAnnotation(EraseTarget.class);
-        if (Objects.nonNull(eraseTarget)) {
-            targetFieldCache.put(dataClass, new ArrayList<>());
-            return true;
+        try {
+            ErasurePlan plan = ErasurePlan.compile(dataClass);
+            return plan.isEmpty() ? ErasurePlan.NONE : plan;
+        } catch (IllegalAccessException | RuntimeException e) {
+            log.error("DefaultTimeEraser compile plan error, erasure disabled for class={}", dataClass.getName(), e);
+            return ErasurePlan.NONE;
         }
-        return false;
     }
 
     /**
-     * 判断是否为默认时间
+     * 判断是否为数据库实体类
      *
-     * @param dateValue 数据库时间值
-     * @return 是否为默认时间
+     * @param dataClass 实体类
+     * @return 是否为数据库实体类
      */
-    private boolean isDefaultDate(Date dateValue) {
-        if (null == dateValue) {
-            return false;
-        }
-        return dateValue.getTime() == DEFAULT_TIME_MILLIS;
+    private static boolean isEraseTargetDomain(Class<?> dataClass) {
+        return Objects.nonNull(dataClass.getAnnotation(EraseTarget.class));
     }
 
     @Override
@@ -170,5 +218,11 @@ public class DefaultTimeEraser implements Interceptor {
 
     @Override
     public void setProperties(Properties properties) {
+        String scanPackages = properties.getProperty(SCAN_PACKAGES);
+        if (StringUtils.hasText(scanPackages)) {
+            int count = precompute(StringUtils.tokenizeToStringArray(scanPackages,
+                    ConfigurableApplicationContext.CONFIG_LOCATION_DELIMITERS));
+            log.info("DefaultTimeEraser precomputed {} erase plans, scanPackages={}", count, scanPackages);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package interceptor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 逐行擦除默认时间的游标，每取出一行处理一行，内存占用与结果集大小无关
+ *
+ * @author cszxyang
+ */
+@Slf4j
+final class ErasingCursor<T> implements Cursor<T> {
+
+    private final Cursor<T> delegate;
+
+    private final RowEraser rowEraser;
+
+    ErasingCursor(Cursor<T> delegate, RowEraser rowEraser) {
+        this.delegate = delegate;
+        this.rowEraser = rowEraser;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return delegate.isConsumed();
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return delegate.getCurrentIndex();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<T> iterator = delegate.iterator();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                T row = iterator.next();
+                try {
+                    return (T) rowEraser.erase(row);
+                } catch (Throwable throwable) {
+                    log.error("DefaultTimeEraser erase cursor row error", throwable);
+                    return row;
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package interceptor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+
+/**
+ * 逐行擦除默认时间的 ResultHandler，每映射出一行处理一行后再交给业务的 ResultHandler
+ *
+ * @author cszxyang
+ */
+@Slf4j
+final class ErasingResultHandler implements ResultHandler<Object> {
+
+    private final ResultHandler<Object> delegate;
+
+    private final RowEraser rowEraser;
+
+    ErasingResultHandler(ResultHandler<Object> delegate, RowEraser rowEraser) {
+        this.delegate = delegate;
+        this.rowEraser = rowEraser;
+    }
+
+    @Override
+    public void handleResult(ResultContext<?> resultContext) {
+        Object row = resultContext.getResultObject();
+        Object erased = row;
+        try {
+            erased = rowEraser.erase(row);
+        } catch (Throwable throwable) {
+            log.error("DefaultTimeEraser erase handler row error", throwable);
+        }
+        delegate.handleResult(erased == row ? resultContext : new ErasedResultContext(resultContext, erased));
+    }
+
+    /**
+     * 单列默认时间被置空后，ResultContext 本身不可修改，只能换一个返回新值的上下文
+     */
+    private static final class ErasedResultContext implements ResultContext<Object> {
+
+        private final ResultContext<?> context;
+
+        private final Object resultObject;
+
+        ErasedResultContext(ResultContext<?> context, Object resultObject) {
+            this.context = context;
+            this.resultObject = resultObject;
+        }
+
+        @Override
+        public Object getResultObject() {
+            return resultObject;
+        }
+
+        @Override
+        public int getResultCount() {
+            return context.getResultCount();
+        }
+
+        @Override
+        public boolean isStopped() {
+            return context.isStopped();
+        }
+
+        @Override
+        public void stop() {
+            context.stop();
+        }
+    }
+}
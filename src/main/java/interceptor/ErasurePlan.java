@@ -0,0 +1,191 @@
+package interceptor;
+
+import annotation.EraseDefaultTime;
+import annotation.EraseNested;
+import annotation.EraseSentinel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 单个实体类的擦除计划，在首次遇到该类时编译一次
+ * 编译时完成字段扫描、访问权限处理与哨兵值解析，并把字段读写转换为 MethodHandle，逐行处理时不再有反射开销
+ * 一行数据的全部哨兵字段与嵌套实体在同一次遍历中处理
+ *
+ * @author cszxyang
+ */
+@Slf4j
+final class ErasurePlan {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final MethodHandle[] NO_HANDLES = new MethodHandle[0];
+
+    /**
+     * 不需要擦除的类型共用的空计划，缓存它以免重复判断
+     */
+    static final ErasurePlan NONE = new ErasurePlan(Object.class, NO_HANDLES, NO_HANDLES, emptySentinels(), NO_HANDLES);
+
+    private final Class<?> type;
+
+    private final MethodHandle[] getters;
+
+    private final MethodHandle[] setters;
+
+    private final Predicate<Object>[] sentinels;
+
+    private final MethodHandle[] nestedGetters;
+
+    private ErasurePlan(Class<?> type, MethodHandle[] getters, MethodHandle[] setters,
+                        Predicate<Object>[] sentinels, MethodHandle[] nestedGetters) {
+        this.type = type;
+        this.getters = getters;
+        this.setters = setters;
+        this.sentinels = sentinels;
+        this.nestedGetters = nestedGetters;
+    }
+
+    /**
+     * 编译实体类的擦除计划
+     *
+     * @param type 被 @EraseTarget 标记的实体类
+     * @return 擦除计划，没有需要擦除的字段时为空计划
+     * @throws IllegalAccessException   反射异常
+     * @throws IllegalArgumentException 字段类型不支持或哨兵值无法解析
+     */
+    static ErasurePlan compile(Class<?> type) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<MethodHandle> getters = new ArrayList<>();
+        List<MethodHandle> setters = new ArrayList<>();
+        List<Predicate<Object>> sentinels = new ArrayList<>();
+        List<MethodHandle> nestedGetters = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            String[] values = sentinelValues(field);
+            if (Objects.nonNull(values)) {
+                try {
+                    sentinels.add(Sentinels.of(field.getType(), values));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("invalid sentinel of " + type.getName() + "." + field.getName(), e);
+                }
+                field.setAccessible(true);
+                getters.add(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+                setters.add(lookup.unreflectSetter(field).asType(SETTER_TYPE));
+            }
+            if (Objects.nonNull(field.getAnnotation(EraseNested.class))) {
+                field.setAccessible(true);
+                nestedGetters.add(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+            }
+        }
+        @SuppressWarnings("unchecked")
+        Predicate<Object>[] sentinelArray = sentinels.toArray(new Predicate[0]);
+        return new ErasurePlan(type, getters.toArray(NO_HANDLES), setters.toArray(NO_HANDLES), sentinelArray,
+                nestedGetters.toArray(NO_HANDLES));
+    }
+
+    /**
+     * @return 字段的哨兵值，@EraseDefaultTime 等同于默认的日期时间哨兵值，只对日期时间字段生效，不需要擦除时为 null
+     */
+    private static String[] sentinelValues(Field field) {
+        EraseSentinel sentinel = field.getAnnotation(EraseSentinel.class);
+        if (Objects.nonNull(sentinel)) {
+            return sentinel.value();
+        }
+        if (Objects.nonNull(field.getAnnotation(EraseDefaultTime.class))) {
+            Class<?> type = field.getType();
+            if (Date.class.isAssignableFrom(type) || LocalDateTime.class == type) {
+                return new String[]{Sentinels.DEFAULT_TIME};
+            }
+            log.warn("DefaultTimeEraser ignore @EraseDefaultTime on non date time field, field={}.{}, type={}",
+                    field.getDeclaringClass().getName(), field.getName(), type.getName());
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate<Object>[] emptySentinels() {
+        return new Predicate[0];
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    boolean isEmpty() {
+        return getters.length == 0 && nestedGetters.length == 0;
+    }
+
+    /**
+     * 把实体对象中的哨兵值置空，并递归处理嵌套实体
+     *
+     * @param data   实体对象，类型与计划一致
+     * @param eraser 提供嵌套实体的擦除计划
+     * @throws Throwable 字段读写异常
+     */
+    void erase(Object data, DefaultTimeEraser eraser) throws Throwable {
+        // 只有存在嵌套实体时才需要防止循环引用
+        Set<Object> visited = null;
+        if (nestedGetters.length > 0) {
+            visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            visited.add(data);
+        }
+        erase(data, eraser, visited);
+    }
+
+    private void erase(Object data, DefaultTimeEraser eraser, Set<Object> visited) throws Throwable {
+        for (int i = 0; i < getters.length; i++) {
+            Object value = getters[i].invokeExact(data);
+            if (null != value && sentinels[i].test(value)) {
+                setters[i].invokeExact(data, (Object) null);
+            }
+        }
+        for (MethodHandle nestedGetter : nestedGetters) {
+            Object value = nestedGetter.invokeExact(data);
+            if (null != value) {
+                eraseNested(value, eraser, visited);
+            }
+        }
+    }
+
+    private static void eraseNested(Object value, DefaultTimeEraser eraser, Set<Object> visited) throws Throwable {
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                if (null != element) {
+                    eraseNested(element, eraser, visited);
+                }
+            }
+        } else if (value instanceof Map) {
+            for (Object element : ((Map<?, ?>) value).values()) {
+                if (null != element) {
+                    eraseNested(element, eraser, visited);
+                }
+            }
+        } else if (value instanceof Object[]) {
+            for (Object element : (Object[]) value) {
+                if (null != element) {
+                    eraseNested(element, eraser, visited);
+                }
+            }
+        } else {
+            ErasurePlan plan = eraser.planOf(value.getClass());
+            if (null != plan && visited.add(value)) {
+                plan.erase(value, eraser, visited);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package interceptor;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * 逐行擦除默认时间，供列表、游标与 ResultHandler 三种查询方式共用
+ * 同一次查询的结果几乎总是同一类型，因此记住上一行的类型与计划，逐行处理时不再查缓存
+ * 非线程安全，每次查询各自创建
+ *
+ * @author cszxyang
+ */
+final class RowEraser {
+
+    private final DefaultTimeEraser eraser;
+
+    private Class<?> lastType;
+
+    private ErasurePlan lastPlan;
+
+    RowEraser(DefaultTimeEraser eraser) {
+        this.eraser = eraser;
+    }
+
+    /**
+     * 擦除单行数据
+     *
+     * @param row MyBatis 映射出的一行数据
+     * @return 擦除后的行，实体类原地修改后原样返回，单列默认时间返回 null
+     * @throws Throwable 字段读写异常
+     */
+    Object erase(Object row) throws Throwable {
+        if (null == row) {
+            return null;
+        }
+        if (row instanceof Date || row instanceof LocalDateTime) {
+            // 有可能只查单列
+            return Sentinels.isDefaultTime(row) ? null : row;
+        }
+        Class<?> type = row.getClass();
+        if (type != lastType) {
+            // 多态查询时子类各自编译计划
+            lastPlan = eraser.planOf(type);
+            lastType = type;
+        }
+        if (null != lastPlan) {
+            lastPlan.erase(row, eraser);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,196 @@
+package interceptor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 按字段类型把哨兵值编译为判断条件，编译在擦除计划编译时完成一次
+ *
+ * @author cszxyang
+ */
+final class Sentinels {
+
+    /**
+     * 默认的日期时间哨兵值
+     */
+    static final String DEFAULT_TIME = "1970-01-01 00:00:00";
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 任意时区与 UTC 的偏移都不超过 18 小时，超出该范围的时间戳不必再换算墙上时间
+     */
+    private static final long MAX_OFFSET_MILLIS = 18 * 3600 * 1000L;
+
+    private Sentinels() {
+    }
+
+    /**
+     * 编译字段的哨兵值判断条件
+     *
+     * @param type   字段类型
+     * @param values 哨兵值，为空时使用该类型的默认哨兵值
+     * @return 判断条件，入参不为 null
+     * @throws IllegalArgumentException 字段类型不支持或哨兵值无法按字段类型解析
+     */
+    static Predicate<Object> of(Class<?> type, String[] values) {
+        if (type.isPrimitive()) {
+            throw new IllegalArgumentException("primitive field can not be erased to null: " + type);
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return dateTime(parse(values, DEFAULT_TIME, s -> LocalDateTime.parse(s, DATE_TIME_FORMATTER)));
+        }
+        if (LocalDateTime.class == type) {
+            return equalTo(parse(values, DEFAULT_TIME, s -> LocalDateTime.parse(s, DATE_TIME_FORMATTER)));
+        }
+        if (LocalDate.class == type) {
+            return equalTo(parse(values, "1970-01-01", LocalDate::parse));
+        }
+        if (String.class == type) {
+            return equalTo(parse(values, "", s -> s));
+        }
+        if (BigDecimal.class == type) {
+            List<BigDecimal> sentinels = parse(values, "-1", BigDecimal::new);
+            // BigDecimal 的 equals 会比较精度，-1 与 -1.00 需按数值比较
+            return value -> {
+                for (BigDecimal sentinel : sentinels) {
+                    if (sentinel.compareTo((BigDecimal) value) == 0) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+        Function<String, Object> parser = numberParser(type);
+        if (null == parser) {
+            throw new IllegalArgumentException("unsupported sentinel field type: " + type.getName());
+        }
+        return equalTo(parse(values, "-1", parser));
+    }
+
+    /**
+     * 判断是否为默认的日期时间哨兵值
+     *
+     * @param value 查询出的单列值
+     * @return 是否为默认时间
+     */
+    static boolean isDefaultTime(Object value) {
+        if (value instanceof Date) {
+            return DefaultTime.DATE.test(value);
+        }
+        return value instanceof LocalDateTime && DefaultTime.LOCAL_DATE_TIME.equals(value);
+    }
+
+    private static Function<String, Object> numberParser(Class<?> type) {
+        if (Integer.class == type) {
+            return Integer::valueOf;
+        }
+        if (Long.class == type) {
+            return Long::valueOf;
+        }
+        if (Short.class == type) {
+            return Short::valueOf;
+        }
+        if (Byte.class == type) {
+            return Byte::valueOf;
+        }
+        if (Double.class == type) {
+            return Double::valueOf;
+        }
+        if (Float.class == type) {
+            return Float::valueOf;
+        }
+        if (BigInteger.class == type) {
+            return BigInteger::new;
+        }
+        return null;
+    }
+
+    private static <T> List<T> parse(String[] values, String defaultValue, Function<String, ? extends T> parser) {
+        List<T> sentinels = new ArrayList<>();
+        for (String value : values.length == 0 ? new String[]{defaultValue} : values) {
+            sentinels.add(parser.apply(value));
+        }
+        return sentinels;
+    }
+
+    private static Predicate<Object> equalTo(List<?> sentinels) {
+        if (sentinels.size() == 1) {
+            Object sentinel = sentinels.get(0);
+            return sentinel::equals;
+        }
+        Set<Object> set = new HashSet<>(sentinels);
+        return set::contains;
+    }
+
+    /**
+     * JDBC 驱动按 JVM 当前时区把墙上时间转换为 Date，因此比较墙上时间而非类加载时算好的时间戳，时区变化后依然成立
+     * 只有接近哨兵值的时间戳才需要读取当前时区，每次判断至多读取一次，换算确认过的时间戳连同确认时的时区被记住，
+     * 之后同样的值在同一时区下不必再换算
+     */
+    private static Predicate<Object> dateTime(List<LocalDateTime> sentinels) {
+        long[] utcMillis = new long[sentinels.size()];
+        for (int i = 0; i < utcMillis.length; i++) {
+            utcMillis[i] = sentinels.get(i).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        AtomicReferenceArray<Hit> hits = new AtomicReferenceArray<>(utcMillis.length);
+        return value -> {
+            long millis = ((Date) value).getTime();
+            TimeZone zone = null;
+            for (int i = 0; i < utcMillis.length; i++) {
+                if (Math.abs(millis - utcMillis[i]) > MAX_OFFSET_MILLIS) {
+                    continue;
+                }
+                if (null == zone) {
+                    // TimeZone.getDefault 每次都会复制时区对象，只在接近哨兵值时读取
+                    zone = TimeZone.getDefault();
+                }
+                Hit hit = hits.get(i);
+                if (null != hit && hit.millis == millis && hit.zone.equals(zone)) {
+                    return true;
+                }
+                // 墙上时间 = 时间戳 + 当前时区在该时刻的偏移
+                if (millis + zone.getOffset(millis) == utcMillis[i]) {
+                    hits.set(i, new Hit(millis, zone));
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * 换算确认过的哨兵时间戳及确认时的时区，默认时区变化后不再有效
+     */
+    private static final class Hit {
+
+        private final long millis;
+
+        private final TimeZone zone;
+
+        Hit(long millis, TimeZone zone) {
+            this.millis = millis;
+            this.zone = zone;
+        }
+    }
+
+    private static final class DefaultTime {
+
+        private static final LocalDateTime LOCAL_DATE_TIME = LocalDateTime.parse(DEFAULT_TIME, DATE_TIME_FORMATTER);
+
+        private static final Predicate<Object> DATE = of(Date.class, new String[0]);
+    }
+}
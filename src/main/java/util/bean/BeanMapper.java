@@ -0,0 +1,93 @@
+package util.bean;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 深度复制对象属性，并在属性类型不同时自动转换
+ * 每个 源类型 -> 目标类型 组合只在首次使用时编译一次：匹配同名属性、确定每个属性的转换方式并生成 MethodHandle，
+ * 之后的复制不再有反射与类型判断
+ * 支持的转换：
+ * 基本类型与包装类型互转、数值类型互转、Date 与 LocalDateTime/LocalDate 互转、枚举与字符串互转、
+ * 嵌套实体递归复制、集合与 Map 按泛型参数逐个转换元素
+ * 同一个对象在一次复制中只复制一次，循环引用复制为同样的循环引用；无法转换的属性被跳过
+ *
+ * @author cszxyang
+ */
+public final class BeanMapper {
+
+    private static final ClassValue<ClassValue<TypeMapping>> MAPPINGS = new ClassValue<ClassValue<TypeMapping>>() {
+        @Override
+        protected ClassValue<TypeMapping> computeValue(final Class<?> srcClass) {
+            return new ClassValue<TypeMapping>() {
+                @Override
+                protected TypeMapping computeValue(Class<?> targetClass) {
+                    return TypeMapping.compile(srcClass, targetClass);
+                }
+            };
+        }
+    };
+
+    private BeanMapper() {}
+
+    /**
+     * 深度复制对象
+     * @param src 源对象
+     * @param targetClass 目标类型，需有无参构造方法
+     * @param <T> 目标类型
+     * @return 目标对象，源对象为 null 时为 null
+     */
+    public static <T> T map(Object src, Class<T> targetClass) {
+        Objects.requireNonNull(targetClass);
+        if (null == src) {
+            return null;
+        }
+        return targetClass.cast(mapBean(src, targetClass, new IdentityHashMap<>()));
+    }
+
+    /**
+     * 深度复制列表，每个元素各自处理循环引用，内存占用不随列表长度累积
+     * @param srcList 源对象列表，null 元素复制为 null
+     * @param targetClass 目标类型，需有无参构造方法
+     * @param <T> 目标类型
+     * @return 目标对象列表，顺序与源列表一致
+     */
+    public static <T> List<T> mapList(Collection<?> srcList, Class<T> targetClass) {
+        Objects.requireNonNull(targetClass);
+        List<T> targets = new ArrayList<>(srcList.size());
+        for (Object src : srcList) {
+            targets.add(map(src, targetClass));
+        }
+        return targets;
+    }
+
+    /**
+     * 复制嵌套实体，同一源对象复制为同一目标类型时直接返回之前的结果
+     * @param src 源对象，不为 null
+     * @param targetClass 目标类型
+     * @param visited 本次复制中 源对象 -> 目标类型 -> 目标对象，同一源对象可能被复制为多种目标类型
+     * @return 目标对象
+     */
+    static Object mapBean(Object src, Class<?> targetClass, Map<Object, Map<Class<?>, Object>> visited) {
+        Map<Class<?>, Object> targets = visited.get(src);
+        Object target = null == targets ? null : targets.get(targetClass);
+        if (null != target) {
+            return target;
+        }
+        TypeMapping mapping = MAPPINGS.get(src.getClass()).get(targetClass);
+        target = mapping.newTarget();
+        if (null == targets) {
+            targets = new HashMap<>(4);
+            visited.put(src, targets);
+        }
+        // 先登记再填充属性，属性中引用回自身时能拿到该对象
+        targets.put(targetClass, target);
+        mapping.populate(src, target, visited);
+        return target;
+    }
+}
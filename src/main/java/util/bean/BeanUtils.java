@@ -3,8 +3,18 @@ package util.bean;
 import net.sf.cglib.beans.BeanCopier;
 import net.sf.cglib.core.Converter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * @author  cszxyang
@@ -12,37 +22,71 @@ import java.util.WeakHashMap;
  */
 public class BeanUtils {
 
-    // 使用 WeakHashMap 缓存,在内存不足时会自动释放
-    private final static Map<String, BeanCopier> BEAN_COPIER_MAP = new WeakHashMap<>();
-    private final static Map<String, Converter> CONVERTER_MAP = new WeakHashMap<>();
-    private static final Object lock1 = new Object();
-    private static final Object lock2 = new Object();
+    // 按 源类型 -> 目标类型 两级缓存 BeanCopier，读取无锁且不分配对象，类卸载后随之释放
+    private final static ClassValue<ClassValue<BeanCopier>> BEAN_COPIERS =
+            newClassPairCache((srcClass, targetClass) -> BeanCopier.create(srcClass, targetClass, false));
+    private final static ClassValue<ClassValue<BeanCopier>> CONVERTER_BEAN_COPIERS =
+            newClassPairCache((srcClass, targetClass) -> BeanCopier.create(srcClass, targetClass, true));
+    // 部分属性复制器再按属性列表缓存，属性列表通常是常量，数量有限
+    private final static ClassValue<ClassValue<Map<String, PropertyCopier>>> INCLUDE_COPIERS =
+            newClassPairCache((srcClass, targetClass) -> new ConcurrentHashMap<>());
+    private final static ClassValue<ClassValue<Map<String, PropertyCopier>>> EXCLUDE_COPIERS =
+            newClassPairCache((srcClass, targetClass) -> new ConcurrentHashMap<>());
+
+    // 并行复制的最小列表长度与每个分片的长度，更短的列表并行的调度开销大于收益
+    private static final int PARALLEL_THRESHOLD = 10000;
+    private static final int PARALLEL_CHUNK_SIZE = 4096;
 
     private BeanUtils() {}
 
     /**
-     * 创建 BeanCopier，并缓存
+     * 获取 BeanCopier，首次遇到该类型组合时创建并缓存
      * @param src src
      * @param target target
      * @param useConverter use converter or not
      * @return a BeanCopier instance
      */
     private static BeanCopier getBeanCopier(Object src, Object target, boolean useConverter) {
-        String key = generateKey(src, target, useConverter);
-        BeanCopier copier = BEAN_COPIER_MAP.get(key);
+        ClassValue<ClassValue<BeanCopier>> copiers = useConverter ? CONVERTER_BEAN_COPIERS : BEAN_COPIERS;
+        return copiers.get(src.getClass()).get(target.getClass());
+    }
+
+    /**
+     * 获取部分属性复制器，首次遇到该类型组合与属性列表时编译并缓存
+     * @param src src
+     * @param target target
+     * @param fields 属性列表
+     * @param include true:只复制fields中的属性；false:复制fields以外的属性
+     * @return a PropertyCopier instance
+     */
+    private static PropertyCopier getPropertyCopier(Object src, Object target, String fields, boolean include) {
+        Objects.requireNonNull(fields);
+        Class<?> srcClass = src.getClass();
+        Class<?> targetClass = target.getClass();
+        Map<String, PropertyCopier> copiers = (include ? INCLUDE_COPIERS : EXCLUDE_COPIERS).get(srcClass).get(targetClass);
+        PropertyCopier copier = copiers.get(fields);
         if (null == copier) {
-            synchronized (lock1) {
-                copier = BEAN_COPIER_MAP.get(key);
-                if (null == copier) {
-                    copier = BeanCopier.create(src.getClass(), target.getClass(), useConverter);
-                    BEAN_COPIER_MAP.put(key, copier);
-                    System.out.println("Create BeanCopier with key:" + key);
-                }
-            }
+            copier = copiers.computeIfAbsent(fields,
+                    key -> PropertyCopier.compile(srcClass, targetClass, PropertyCopier.parseNames(key), include));
         }
         return copier;
     }
 
+    private static <T> ClassValue<ClassValue<T>> newClassPairCache(final BiFunction<Class<?>, Class<?>, T> factory) {
+        return new ClassValue<ClassValue<T>>() {
+            @Override
+            protected ClassValue<T> computeValue(final Class<?> srcClass) {
+                return new ClassValue<T>() {
+                    @Override
+                    protected T computeValue(Class<?> targetClass) {
+                        // 并发首次访问时可能重复创建，ClassValue 只保留其中一个
+                        return factory.apply(srcClass, targetClass);
+                    }
+                };
+            }
+        };
+    }
+
     /**
      * 复制对象属性
      * @param src srcv
@@ -65,65 +109,114 @@ public class BeanUtils {
     }
 
     /**
-     * 对象属性复制，只复制fields中指定的属性，每个属性用逗号分隔
+     * 对象属性复制，只复制fields中指定的属性，每个属性用逗号分隔，按属性名精确匹配
      * @param src src
      * @param target target
      * @param fields fields
      */
     public static void copyWithFields(Object src,Object target,final String fields) {
-        BeanCopier bc = getBeanCopier(src, target,true);
-        bc.copy(src, target, newConverter(src, target,fields,true));
+        getPropertyCopier(src, target, fields, true).copy(src, target);
     }
 
     /**
-     * 对象属性复制，排除指定属性
+     * 对象属性复制，排除指定属性，每个属性用逗号分隔，按属性名精确匹配
      * @param src src
      * @param target target
      * @param fields fields
      */
     public static void copyWithoutFields(Object src, Object target, final String fields) {
-        BeanCopier copier = getBeanCopier(src, target,true);
-        copier.copy(src, target, newConverter(src, target, fields,false));
+        getPropertyCopier(src, target, fields, false).copy(src, target);
+    }
+
+    /**
+     * 批量复制对象属性，BeanCopier 只查找一次，结果列表按源列表长度预分配
+     * @param srcList 源对象列表，null 元素复制为 null
+     * @param targetSupplier 创建目标对象
+     * @param <T> 目标类型
+     * @return 目标对象列表，顺序与源列表一致
+     */
+    public static <T> List<T> copyList(List<?> srcList, Supplier<? extends T> targetSupplier) {
+        return copyList(srcList, targetSupplier, false);
     }
 
     /**
-     * new属性转换器，
-     * @param fields 需要复制或排除的属性
-     * @param fieldCopyFlag 属性复制标识 true:表明fields为需要复制的属性；false:表明fields是需要排除复制的属性
-     * @return a Converter instance
+     * 批量复制对象属性，可选按 CPU 核数并行复制
+     * @param srcList 源对象列表，null 元素复制为 null
+     * @param targetSupplier 创建目标对象，并行复制时会被多个线程同时调用
+     * @param parallel 是否并行复制，列表较短时仍在当前线程复制
+     * @param <T> 目标类型
+     * @return 目标对象列表，顺序与源列表一致
      */
-    private static Converter newConverter(Object src, Object target, final String fields, final boolean fieldCopyFlag) {
-        String key = buildConverterKey(src, target, fields, fieldCopyFlag);
-        Converter converter = CONVERTER_MAP.get(key);
-        if (null == converter) {
-            synchronized (lock2) {
-                converter = CONVERTER_MAP.get(key);
-                if (null == converter) {
-                    converter = new Converter() {
-                        @Override
-                        public Object convert(Object fieldValue, Class fieldType, Object methodName) {
-                            String field = methodName.toString().substring(3); // 得到属性名，如Name
-                            field = field.substring(0,1).toLowerCase() + field.substring(1); // 将首字母小写
-                            if ((fieldCopyFlag && fields.contains(field)) || (!fieldCopyFlag && !fields.contains(field))) {
-                                return fieldValue;
-                            }
-                            return null;
-                        }
-                    };
-                    CONVERTER_MAP.put(key, converter);
-                    System.out.println("Created Converter with key:" + key);
-                }
+    public static <T> List<T> copyList(List<?> srcList, Supplier<? extends T> targetSupplier, boolean parallel) {
+        Objects.requireNonNull(targetSupplier);
+        int size = srcList.size();
+        if (!parallel || size < PARALLEL_THRESHOLD) {
+            List<T> targets = new ArrayList<>(size);
+            CachedCopier copier = new CachedCopier();
+            for (Object src : srcList) {
+                targets.add(copier.copy(src, targetSupplier));
             }
+            return targets;
         }
-        return converter;
+        // 非随机访问的列表先转成数组，避免分片时按下标遍历链表
+        List<?> sources = srcList instanceof RandomAccess ? srcList : Arrays.asList(srcList.toArray());
+        // 预先填满 null 的列表只分配一次数组，各分片按下标写入互不重叠的位置，并行流结束时写入对当前线程可见
+        List<T> targets = new ArrayList<>(Collections.nCopies(size, null));
+        int chunks = (size + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            CachedCopier copier = new CachedCopier();
+            for (int i = chunk * PARALLEL_CHUNK_SIZE, end = Math.min(size, i + PARALLEL_CHUNK_SIZE); i < end; i++) {
+                targets.set(i, copier.copy(sources.get(i), targetSupplier));
+            }
+        });
+        return targets;
     }
 
-    private static String generateKey(Object src, Object target, boolean useConverter) {
-        return src.getClass().getName() + target.getClass().getName() + useConverter;
+    /**
+     * 流式复制对象属性，每取出一个元素复制一个，适用于 MyBatis Cursor 等无法整体载入内存的数据源
+     * @param srcIterator 源对象迭代器，例如 cursor.iterator()，null 元素复制为 null
+     * @param targetSupplier 创建目标对象
+     * @param <T> 目标类型
+     * @return 目标对象迭代器
+     */
+    public static <T> Iterator<T> copyIterator(final Iterator<?> srcIterator, final Supplier<? extends T> targetSupplier) {
+        Objects.requireNonNull(srcIterator);
+        Objects.requireNonNull(targetSupplier);
+        return new Iterator<T>() {
+            private final CachedCopier copier = new CachedCopier();
+
+            @Override
+            public boolean hasNext() {
+                return srcIterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return copier.copy(srcIterator.next(), targetSupplier);
+            }
+        };
     }
 
-    private static String buildConverterKey(Object src,Object target,String fields,boolean copyFlag) {
-        String baseKey = generateKey(src, target,true);
-        return baseKey + fields + copyFlag;
+    /**
+     * 记住上一次使用的 BeanCopier，同类型的连续复制不再查缓存，非线程安全
+     */
+    private static final class CachedCopier {
+        private Class<?> srcClass;
+        private Class<?> targetClass;
+        private BeanCopier copier;
+
+        <T> T copy(Object src, Supplier<? extends T> targetSupplier) {
+            if (null == src) {
+                return null;
+            }
+            T target = targetSupplier.get();
+            if (src.getClass() != srcClass || target.getClass() != targetClass) {
+                copier = getBeanCopier(src, target, false);
+                srcClass = src.getClass();
+                targetClass = target.getClass();
+            }
+            copier.copy(src, target, null);
+            return target;
+        }
     }
 }
@@ -0,0 +1,124 @@
+package util.bean;
+
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 只复制部分属性的复制器，按 源类型、目标类型、属性集合 编译一次
+ * 编译时完成属性匹配与访问权限处理，复制时只调用选中属性的 getter/setter
+ *
+ * @author cszxyang
+ */
+final class PropertyCopier {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final MethodHandle[] getters;
+
+    private final MethodHandle[] setters;
+
+    /**
+     * 目标属性为基本类型时不能写入 null
+     */
+    private final boolean[] primitives;
+
+    private PropertyCopier(MethodHandle[] getters, MethodHandle[] setters, boolean[] primitives) {
+        this.getters = getters;
+        this.setters = setters;
+        this.primitives = primitives;
+    }
+
+    /**
+     * 编译复制器，只匹配源类型可读、目标类型可写且类型兼容的同名属性
+     *
+     * @param srcClass    源类型
+     * @param targetClass 目标类型
+     * @param names       属性名
+     * @param include     true：只复制 names 中的属性；false：复制 names 以外的属性
+     * @return 复制器
+     */
+    static PropertyCopier compile(Class<?> srcClass, Class<?> targetClass, Set<String> names, boolean include) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<MethodHandle> getters = new ArrayList<>();
+        List<MethodHandle> setters = new ArrayList<>();
+        List<Boolean> primitives = new ArrayList<>();
+        for (PropertyDescriptor targetProperty : org.springframework.beans.BeanUtils.getPropertyDescriptors(targetClass)) {
+            String name = targetProperty.getName();
+            Method writeMethod = targetProperty.getWriteMethod();
+            if (null == writeMethod || names.contains(name) != include) {
+                continue;
+            }
+            PropertyDescriptor srcProperty = org.springframework.beans.BeanUtils.getPropertyDescriptor(srcClass, name);
+            Method readMethod = null == srcProperty ? null : srcProperty.getReadMethod();
+            if (null == readMethod
+                    || !ClassUtils.isAssignable(writeMethod.getParameterTypes()[0], readMethod.getReturnType())) {
+                continue;
+            }
+            try {
+                readMethod.setAccessible(true);
+                writeMethod.setAccessible(true);
+                getters.add(lookup.unreflect(readMethod).asType(GETTER_TYPE));
+                setters.add(lookup.unreflect(writeMethod).asType(SETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("compile property copier error, property=" + name, e);
+            }
+            primitives.add(writeMethod.getParameterTypes()[0].isPrimitive());
+        }
+        boolean[] primitiveArray = new boolean[primitives.size()];
+        for (int i = 0; i < primitiveArray.length; i++) {
+            primitiveArray[i] = primitives.get(i);
+        }
+        return new PropertyCopier(getters.toArray(new MethodHandle[0]), setters.toArray(new MethodHandle[0]),
+                primitiveArray);
+    }
+
+    /**
+     * 解析逗号分隔的属性名，按名称精确匹配
+     *
+     * @param fields 属性名，每个属性用逗号分隔
+     * @return 属性名集合
+     */
+    static Set<String> parseNames(String fields) {
+        Set<String> names = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * 复制属性
+     *
+     * @param src    源对象
+     * @param target 目标对象
+     */
+    void copy(Object src, Object target) {
+        try {
+            for (int i = 0; i < getters.length; i++) {
+                Object value = getters[i].invokeExact(src);
+                if (null != value || !primitives[i]) {
+                    setters[i].invokeExact(target, value);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("copy property error", throwable);
+        }
+    }
+}
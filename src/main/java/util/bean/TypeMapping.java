@@ -0,0 +1,144 @@
+package util.bean;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BeanMapper 中一个 源类型 -> 目标类型 组合编译好的复制方式
+ *
+ * @author cszxyang
+ */
+final class TypeMapping {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> targetClass;
+
+    private final MethodHandle constructor;
+
+    private final MethodHandle[] getters;
+
+    private final MethodHandle[] setters;
+
+    private final ValueConverters.ValueConverter[] converters;
+
+    /**
+     * 目标属性为基本类型时不能写入 null
+     */
+    private final boolean[] primitives;
+
+    private TypeMapping(Class<?> targetClass, MethodHandle constructor, MethodHandle[] getters, MethodHandle[] setters,
+                        ValueConverters.ValueConverter[] converters, boolean[] primitives) {
+        this.targetClass = targetClass;
+        this.constructor = constructor;
+        this.getters = getters;
+        this.setters = setters;
+        this.converters = converters;
+        this.primitives = primitives;
+    }
+
+    /**
+     * 编译复制方式，只匹配源类型可读、目标类型可写且能够转换的同名属性
+     *
+     * @param srcClass    源类型
+     * @param targetClass 目标类型
+     * @return 复制方式
+     * @throws IllegalArgumentException 目标类型没有无参构造方法
+     */
+    static TypeMapping compile(Class<?> srcClass, Class<?> targetClass) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle constructor;
+        try {
+            Constructor<?> noArgs = targetClass.getDeclaredConstructor();
+            noArgs.setAccessible(true);
+            constructor = lookup.unreflectConstructor(noArgs).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("no accessible no-arg constructor: " + targetClass.getName(), e);
+        }
+        List<MethodHandle> getters = new ArrayList<>();
+        List<MethodHandle> setters = new ArrayList<>();
+        List<ValueConverters.ValueConverter> converters = new ArrayList<>();
+        List<Boolean> primitives = new ArrayList<>();
+        for (PropertyDescriptor targetProperty : org.springframework.beans.BeanUtils.getPropertyDescriptors(targetClass)) {
+            Method writeMethod = targetProperty.getWriteMethod();
+            if (null == writeMethod) {
+                continue;
+            }
+            PropertyDescriptor srcProperty = org.springframework.beans.BeanUtils.getPropertyDescriptor(srcClass,
+                    targetProperty.getName());
+            Method readMethod = null == srcProperty ? null : srcProperty.getReadMethod();
+            if (null == readMethod) {
+                continue;
+            }
+            ValueConverters.ValueConverter converter = ValueConverters.resolve(readMethod.getGenericReturnType(),
+                    writeMethod.getGenericParameterTypes()[0]);
+            if (null == converter) {
+                continue;
+            }
+            try {
+                readMethod.setAccessible(true);
+                writeMethod.setAccessible(true);
+                getters.add(lookup.unreflect(readMethod).asType(GETTER_TYPE));
+                setters.add(lookup.unreflect(writeMethod).asType(SETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("compile type mapping error, property=" + targetProperty.getName(), e);
+            }
+            converters.add(converter);
+            primitives.add(writeMethod.getParameterTypes()[0].isPrimitive());
+        }
+        boolean[] primitiveArray = new boolean[primitives.size()];
+        for (int i = 0; i < primitiveArray.length; i++) {
+            primitiveArray[i] = primitives.get(i);
+        }
+        return new TypeMapping(targetClass, constructor, getters.toArray(new MethodHandle[0]),
+                setters.toArray(new MethodHandle[0]), converters.toArray(new ValueConverters.ValueConverter[0]),
+                primitiveArray);
+    }
+
+    /**
+     * @return 新的目标对象
+     */
+    Object newTarget() {
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("create " + targetClass.getName() + " error", throwable);
+        }
+    }
+
+    /**
+     * 转换并写入全部属性
+     *
+     * @param src     源对象
+     * @param target  目标对象
+     * @param visited 本次复制中 源对象 -> 目标类型 -> 目标对象
+     */
+    void populate(Object src, Object target, Map<Object, Map<Class<?>, Object>> visited) {
+        try {
+            for (int i = 0; i < getters.length; i++) {
+                Object value = getters[i].invokeExact(src);
+                if (null != value) {
+                    value = converters[i].convert(value, visited);
+                }
+                if (null != value || !primitives[i]) {
+                    setters[i].invokeExact(target, value);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("map " + targetClass.getName() + " error", throwable);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package util.bean;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.CollectionFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.NumberUtils;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 按 源属性类型 -> 目标属性类型 确定属性值的转换方式，在 TypeMapping 编译时调用
+ *
+ * @author cszxyang
+ */
+final class ValueConverters {
+
+    private static final ValueConverter IDENTITY = (value, visited) -> value;
+
+    private ValueConverters() {
+    }
+
+    /**
+     * 属性值转换
+     */
+    @FunctionalInterface
+    interface ValueConverter {
+
+        /**
+         * @param value   属性值，不为 null
+         * @param visited 本次复制中 源对象 -> 目标类型 -> 目标对象
+         * @return 转换后的值
+         */
+        Object convert(Object value, Map<Object, Map<Class<?>, Object>> visited);
+    }
+
+    /**
+     * 确定转换方式
+     *
+     * @param from 源属性类型，可以带泛型参数
+     * @param to   目标属性类型，可以带泛型参数
+     * @return 转换方式，无法转换时为 null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static ValueConverter resolve(Type from, Type to) {
+        Class<?> fromClass = ClassUtils.resolvePrimitiveIfNecessary(rawClass(from));
+        Class<?> toClass = ClassUtils.resolvePrimitiveIfNecessary(rawClass(to));
+        if (Collection.class.isAssignableFrom(fromClass) && Collection.class.isAssignableFrom(toClass)) {
+            ValueConverter element = resolve(typeArgument(from, 0), typeArgument(to, 0));
+            if (null == element) {
+                return null;
+            }
+            return (value, visited) -> {
+                Collection<?> source = (Collection<?>) value;
+                Collection target = CollectionFactory.createCollection(toClass, source.size());
+                for (Object item : source) {
+                    target.add(null == item ? null : element.convert(item, visited));
+                }
+                return target;
+            };
+        }
+        if (Map.class.isAssignableFrom(fromClass) && Map.class.isAssignableFrom(toClass)) {
+            ValueConverter key = resolve(typeArgument(from, 0), typeArgument(to, 0));
+            ValueConverter val = resolve(typeArgument(from, 1), typeArgument(to, 1));
+            if (null == key || null == val) {
+                return null;
+            }
+            return (value, visited) -> {
+                Map<?, ?> source = (Map<?, ?>) value;
+                Map target = CollectionFactory.createMap(toClass, source.size());
+                for (Map.Entry<?, ?> entry : source.entrySet()) {
+                    Object k = entry.getKey();
+                    Object v = entry.getValue();
+                    target.put(null == k ? null : key.convert(k, visited), null == v ? null : val.convert(v, visited));
+                }
+                return target;
+            };
+        }
+        if (BeanUtils.isSimpleValueType(toClass) || BeanUtils.isSimpleValueType(fromClass)) {
+            return simpleConverter(fromClass, toClass);
+        }
+        if (isBean(fromClass) && isBean(toClass) && !toClass.isInterface()
+                && !Modifier.isAbstract(toClass.getModifiers()) && hasNoArgConstructor(toClass)) {
+            // 按运行时类型取编译好的复制方式，源属性声明为父类时也能复制子类的属性
+            return (value, visited) -> BeanMapper.mapBean(value, toClass, visited);
+        }
+        // 没有无参构造方法的类型（例如不可变值对象）无法递归复制，类型兼容时与 BeanCopier 一样直接引用
+        return toClass.isAssignableFrom(fromClass) ? IDENTITY : null;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValueConverter simpleConverter(Class<?> fromClass, Class<?> toClass) {
+        if (Date.class.isAssignableFrom(fromClass) && toClass.isAssignableFrom(fromClass)) {
+            // Date 可变，复制一份
+            return (value, visited) -> ((Date) value).clone();
+        }
+        if (toClass.isAssignableFrom(fromClass)) {
+            return IDENTITY;
+        }
+        if (Date.class.isAssignableFrom(fromClass) && LocalDateTime.class == toClass) {
+            return (value, visited) -> LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(((Date) value).getTime()), ZoneId.systemDefault());
+        }
+        if (Date.class.isAssignableFrom(fromClass) && LocalDate.class == toClass) {
+            return (value, visited) -> LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(((Date) value).getTime()), ZoneId.systemDefault()).toLocalDate();
+        }
+        if (LocalDateTime.class == fromClass && Date.class == toClass) {
+            return (value, visited) -> Date.from(((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant());
+        }
+        if (LocalDate.class == fromClass && Date.class == toClass) {
+            return (value, visited) -> Date.from(((LocalDate) value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        }
+        if (fromClass.isEnum() && String.class == toClass) {
+            return (value, visited) -> ((Enum<?>) value).name();
+        }
+        if (String.class == fromClass && toClass.isEnum()) {
+            Class<? extends Enum> enumClass = (Class<? extends Enum>) toClass;
+            return (value, visited) -> Enum.valueOf(enumClass, (String) value);
+        }
+        if (Number.class.isAssignableFrom(fromClass) && Number.class.isAssignableFrom(toClass)
+                && !Modifier.isAbstract(toClass.getModifiers())) {
+            Class<? extends Number> numberClass = (Class<? extends Number>) toClass;
+            return (value, visited) -> NumberUtils.convertNumberToTargetClass((Number) value, numberClass);
+        }
+        return null;
+    }
+
+    private static boolean isBean(Class<?> type) {
+        return !type.isArray() && !type.getName().startsWith("java.");
+    }
+
+    private static boolean hasNoArgConstructor(Class<?> type) {
+        try {
+            type.getDeclaredConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof WildcardType) {
+            return rawClass(((WildcardType) type).getUpperBounds()[0]);
+        }
+        // 类型变量等无法确定具体类型
+        return Object.class;
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < arguments.length) {
+                return arguments[index];
+            }
+        }
+        return Object.class;
+    }
+}
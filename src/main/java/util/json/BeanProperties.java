@@ -0,0 +1,221 @@
+package util.json;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个类型的 JSON 属性元数据，首次遇到该类型时编译一次，序列化与反序列化共用
+ * 编译时完成属性扫描、访问权限处理与属性名转义，并把 getter/setter 与无参构造器转换为 MethodHandle
+ *
+ * @author cszxyang
+ */
+final class BeanProperties {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final ClassValue<BeanProperties> CACHE = new ClassValue<BeanProperties>() {
+        @Override
+        protected BeanProperties computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
+    private final Class<?> type;
+
+    private final Property[] properties;
+
+    /**
+     * 无参构造器，没有时为 null
+     */
+    private final MethodHandle constructor;
+
+    private BeanProperties(Class<?> type, Property[] properties, MethodHandle constructor) {
+        this.type = type;
+        this.properties = properties;
+        this.constructor = constructor;
+    }
+
+    static BeanProperties of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    Property[] getProperties() {
+        return properties;
+    }
+
+    /**
+     * 按属性名查找，属性名在解析器的缓冲区中，不必先创建字符串
+     *
+     * @return 同名属性，没有时为 null
+     */
+    Property find(char[] name, int length) {
+        for (Property property : properties) {
+            String candidate = property.name;
+            if (candidate.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && candidate.charAt(i) == name[i]) {
+                i++;
+            }
+            if (i == length) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    Object newInstance() throws Throwable {
+        if (null == constructor) {
+            throw new IllegalArgumentException("no default constructor: " + type.getName());
+        }
+        return (Object) constructor.invokeExact();
+    }
+
+    private static BeanProperties compile(Class<?> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<Property> properties = new ArrayList<>();
+        for (PropertyDescriptor descriptor : org.springframework.beans.BeanUtils.getPropertyDescriptors(type)) {
+            Method readMethod = descriptor.getReadMethod();
+            Method writeMethod = descriptor.getWriteMethod();
+            if ("class".equals(descriptor.getName()) || (null == readMethod && null == writeMethod)) {
+                continue;
+            }
+            try {
+                MethodHandle getter = null;
+                MethodHandle setter = null;
+                if (null != readMethod) {
+                    readMethod.setAccessible(true);
+                    getter = lookup.unreflect(readMethod).asType(GETTER_TYPE);
+                }
+                if (null != writeMethod) {
+                    writeMethod.setAccessible(true);
+                    setter = lookup.unreflect(writeMethod).asType(SETTER_TYPE);
+                }
+                Type genericType = null != readMethod ? readMethod.getGenericReturnType()
+                        : writeMethod.getGenericParameterTypes()[0];
+                properties.add(new Property(descriptor.getName(), descriptor.getPropertyType(), genericType,
+                        getter, setter));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("compile json properties error, property=" + descriptor.getName(), e);
+            }
+        }
+        return new BeanProperties(type, properties.toArray(new Property[0]), constructorOf(type, lookup));
+    }
+
+    private static MethodHandle constructorOf(Class<?> type, MethodHandles.Lookup lookup) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return lookup.unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 单个属性
+     */
+    static final class Property {
+
+        private final String name;
+
+        /**
+         * 转义后的 "name":，序列化时整段写出
+         */
+        private final char[] nameToken;
+
+        private final Class<?> type;
+
+        private final Type genericType;
+
+        private final MethodHandle getter;
+
+        private final MethodHandle setter;
+
+        /**
+         * 声明类型为 final 类时其序列化方式可以提前确定，不必每次按运行时类型查找
+         */
+        private final ValueWriters.ValueWriter fixedWriter;
+
+        /**
+         * 按声明的泛型类型反序列化，首次用到时才确定，避免编译属性元数据时相互递归
+         */
+        private ValueReaders.ValueReader reader;
+
+        Property(String name, Class<?> type, Type genericType, MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            this.nameToken = JsonWriter.nameToken(name);
+            this.type = type;
+            this.genericType = genericType;
+            this.getter = getter;
+            this.setter = setter;
+            this.fixedWriter = type.isPrimitive() || Modifier.isFinal(type.getModifiers())
+                    ? ValueWriters.of(type) : null;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        char[] getNameToken() {
+            return nameToken;
+        }
+
+        Class<?> getType() {
+            return type;
+        }
+
+        Type getGenericType() {
+            return genericType;
+        }
+
+        boolean isReadable() {
+            return null != getter;
+        }
+
+        boolean isWritable() {
+            return null != setter;
+        }
+
+        ValueWriters.ValueWriter getFixedWriter() {
+            return fixedWriter;
+        }
+
+        ValueReaders.ValueReader getReader() {
+            ValueReaders.ValueReader r = reader;
+            if (null == r) {
+                r = ValueReaders.of(genericType);
+                reader = r;
+            }
+            return r;
+        }
+
+        Object get(Object bean) throws Throwable {
+            return (Object) getter.invokeExact(bean);
+        }
+
+        void set(Object bean, Object value) throws Throwable {
+            setter.invokeExact(bean, value);
+        }
+    }
+}
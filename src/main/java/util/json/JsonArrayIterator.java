@@ -0,0 +1,60 @@
+package util.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 逐个读取顶层 JSON 数组的元素，同一时刻只有一个元素在内存中，适合处理大数组
+ * 非线程安全；关闭时关闭底层的解析器及其输入流
+ *
+ * @param <T> 元素类型
+ * @author cszxyang
+ */
+public final class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+
+    private final JsonReader reader;
+
+    private final Class<T> elementType;
+
+    private boolean ended;
+
+    JsonArrayIterator(JsonReader reader, Class<T> elementType) {
+        this.reader = reader;
+        this.elementType = elementType;
+        reader.beginArray();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (ended) {
+            return false;
+        }
+        if (reader.hasNext()) {
+            return true;
+        }
+        reader.endArray();
+        if (reader.peek() != JsonReader.Token.END_DOCUMENT) {
+            throw reader.syntaxError("expected end of document");
+        }
+        ended = true;
+        return false;
+    }
+
+    /**
+     * @return 下一个元素，JSON 为 null 时为 null
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return reader.read(elementType);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,623 @@
+package util.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * UTF-8 JSON 拉取式解析器，逐个读取 token，不把输入整体读成字符串
+ * byte[] 与堆内 ByteBuffer 直接在原数组上解析，InputStream 与堆外 ByteBuffer 每次读入一块到复用的缓冲区
+ * <pre>{@code
+ * try (JsonReader reader = new JsonReader(inputStream)) {
+ *     reader.beginArray();
+ *     while (reader.hasNext()) {
+ *         Order order = reader.read(Order.class);
+ *     }
+ *     reader.endArray();
+ * }
+ * }</pre>
+ * 非线程安全；格式错误或嵌套超过 JsonUtils.DEFAULT_MAX_DEPTH 层时抛出 IllegalArgumentException，输入流读取失败时抛出 UncheckedIOException
+ *
+ * @author cszxyang
+ */
+public final class JsonReader implements Closeable {
+
+    /**
+     * token 类型
+     */
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final InputStream inputStream;
+
+    private final ByteBuffer byteBuffer;
+
+    private byte[] buf;
+
+    private int pos;
+
+    private int limit;
+
+    /**
+     * 已经丢弃的缓冲区内容长度，用于报告出错位置
+     */
+    private long consumed;
+
+    private int[] stack = new int[32];
+
+    private int stackSize = 1;
+
+    private Token peeked;
+
+    /**
+     * 名称、字符串与数字文本的解码缓冲，复用
+     */
+    private char[] chars = new char[64];
+
+    private int charsLength;
+
+    /**
+     * 在原数组上解析 byte[]
+     *
+     * @param bytes UTF-8 编码的 JSON
+     */
+    public JsonReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 在原数组上解析 byte[] 的一段
+     *
+     * @param bytes  UTF-8 编码的 JSON
+     * @param offset 起始位置
+     * @param length 长度
+     */
+    public JsonReader(byte[] bytes, int offset, int length) {
+        this.inputStream = null;
+        this.byteBuffer = null;
+        this.buf = bytes;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.consumed = -offset;
+    }
+
+    /**
+     * 解析输入流，关闭解析器时关闭输入流
+     *
+     * @param inputStream UTF-8 编码的 JSON
+     */
+    public JsonReader(InputStream inputStream) {
+        this.inputStream = inputStream;
+        this.byteBuffer = null;
+        this.buf = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * 解析 ByteBuffer 从 position 到 limit 的内容，堆内缓冲直接在其数组上解析，关闭解析器时更新其 position
+     *
+     * @param byteBuffer UTF-8 编码的 JSON
+     */
+    public JsonReader(ByteBuffer byteBuffer) {
+        this.inputStream = null;
+        if (byteBuffer.hasArray()) {
+            this.byteBuffer = byteBuffer;
+            this.buf = byteBuffer.array();
+            this.pos = byteBuffer.arrayOffset() + byteBuffer.position();
+            this.limit = byteBuffer.arrayOffset() + byteBuffer.limit();
+            this.consumed = -pos;
+        } else {
+            this.byteBuffer = byteBuffer;
+            this.buf = new byte[BUFFER_SIZE];
+        }
+    }
+
+    /**
+     * @return 下一个 token 的类型，不消费它
+     */
+    public Token peek() {
+        if (null == peeked) {
+            peeked = doPeek();
+        }
+        return peeked;
+    }
+
+    public void beginArray() {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() {
+        expect(Token.END_ARRAY);
+        stackSize--;
+    }
+
+    public void beginObject() {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() {
+        expect(Token.END_OBJECT);
+        stackSize--;
+    }
+
+    /**
+     * @return 当前数组或对象中是否还有元素
+     */
+    public boolean hasNext() {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() {
+        expect(Token.NAME);
+        readString();
+        return new String(chars, 0, charsLength);
+    }
+
+    /**
+     * 读取字符串，数字也按其文本返回
+     */
+    public String nextString() {
+        Token token = peek();
+        if (token == Token.STRING) {
+            peeked = null;
+            readString();
+        } else if (token == Token.NUMBER) {
+            peeked = null;
+            readNumber();
+        } else {
+            throw syntaxError("expected STRING but was " + token);
+        }
+        return new String(chars, 0, charsLength);
+    }
+
+    public boolean nextBoolean() {
+        expect(Token.BOOLEAN);
+        int b = readByte();
+        if (b == 't') {
+            readLiteral("rue");
+            return true;
+        }
+        readLiteral("alse");
+        return false;
+    }
+
+    public void nextNull() {
+        expect(Token.NULL);
+        readByte();
+        readLiteral("ull");
+    }
+
+    public long nextLong() {
+        readNumberToken();
+        long value = 0;
+        boolean negative = chars[0] == '-';
+        int i = negative ? 1 : 0;
+        if (charsLength - i > 18) {
+            return new BigDecimal(chars, 0, charsLength).longValueExact();
+        }
+        for (; i < charsLength; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                // 带小数点或指数，需为整数值
+                return new BigDecimal(chars, 0, charsLength).longValueExact();
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    public int nextInt() {
+        long value = nextLong();
+        if ((int) value != value) {
+            throw syntaxError("int overflow: " + value);
+        }
+        return (int) value;
+    }
+
+    public short nextShort() {
+        int value = nextInt();
+        if ((short) value != value) {
+            throw syntaxError("short overflow: " + value);
+        }
+        return (short) value;
+    }
+
+    public byte nextByte() {
+        int value = nextInt();
+        if ((byte) value != value) {
+            throw syntaxError("byte overflow: " + value);
+        }
+        return (byte) value;
+    }
+
+    public double nextDouble() {
+        readNumberToken();
+        return Double.parseDouble(new String(chars, 0, charsLength));
+    }
+
+    public BigDecimal nextBigDecimal() {
+        readNumberToken();
+        return new BigDecimal(chars, 0, charsLength);
+    }
+
+    /**
+     * 读取数字，整数在 long 范围内时为 Long，否则为 BigDecimal
+     */
+    public Number nextNumber() {
+        readNumberToken();
+        boolean integral = charsLength <= 18;
+        for (int i = 0; integral && i < charsLength; i++) {
+            char c = chars[i];
+            integral = (c >= '0' && c <= '9') || (c == '-' && i == 0);
+        }
+        if (!integral) {
+            return new BigDecimal(chars, 0, charsLength);
+        }
+        long value = 0;
+        for (int i = chars[0] == '-' ? 1 : 0; i < charsLength; i++) {
+            value = value * 10 + (chars[i] - '0');
+        }
+        return chars[0] == '-' ? -value : value;
+    }
+
+    /**
+     * 跳过下一个值，包括其中嵌套的全部内容
+     */
+    public void skipValue() {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case NAME:
+                    peeked = null;
+                    readString();
+                    break;
+                case STRING:
+                    peeked = null;
+                    readString();
+                    break;
+                case NUMBER:
+                    peeked = null;
+                    readNumber();
+                    break;
+                case BOOLEAN:
+                    nextBoolean();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                default:
+                    throw syntaxError("unexpected end of document");
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * 读取下一个值并绑定为指定类型，实体类按其 setter 绑定，未知属性被跳过
+     *
+     * @param type 目标类型
+     * @param <T>  目标类型
+     * @return 值，JSON 为 null 时为 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(Class<T> type) {
+        try {
+            return (T) ValueReaders.of(type).read(this);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("read json error, type=" + type.getName(), t);
+        }
+    }
+
+    /**
+     * 读取属性名并在实体类的属性中查找，不为属性名创建字符串
+     *
+     * @return 同名属性，没有时为 null
+     */
+    BeanProperties.Property nextProperty(BeanProperties properties) {
+        expect(Token.NAME);
+        readString();
+        return properties.find(chars, charsLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (null != inputStream) {
+            inputStream.close();
+        } else if (null != byteBuffer && byteBuffer.hasArray()) {
+            byteBuffer.position(pos - byteBuffer.arrayOffset());
+        }
+    }
+
+    private void expect(Token expected) {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("expected " + expected + " but was " + token);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        // 栈底是文档本身，嵌套层数为 stackSize - 1；限制层数，避免恶意输入让递归的读取过程栈溢出
+        if (stackSize > JsonUtils.DEFAULT_MAX_DEPTH) {
+            throw syntaxError("nesting deeper than " + JsonUtils.DEFAULT_MAX_DEPTH);
+        }
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private Token doPeek() {
+        int scope = stack[stackSize - 1];
+        int c;
+        switch (scope) {
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return Token.END_ARRAY;
+                }
+                return value(c);
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return Token.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw syntaxError("expected ',' or ']'");
+                }
+                return value(nextNonWhitespace());
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return Token.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("expected ',' or '}'");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("expected name");
+                }
+                stack[stackSize - 1] = DANGLING_NAME;
+                return Token.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("expected ':'");
+                }
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                return value(nextNonWhitespace());
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                return value(nextNonWhitespace());
+            default:
+                if (nextNonWhitespace() != -1) {
+                    throw syntaxError("multiple top-level values");
+                }
+                return Token.END_DOCUMENT;
+        }
+    }
+
+    private Token value(int c) {
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return Token.BOOLEAN;
+            case 'n':
+                pos--;
+                return Token.NULL;
+            case -1:
+                throw syntaxError("unexpected end of document");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return Token.NUMBER;
+                }
+                throw syntaxError("unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private int nextNonWhitespace() {
+        while (pos < limit || fill()) {
+            int c = buf[pos++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private int readByte() {
+        if (pos == limit && !fill()) {
+            throw syntaxError("unexpected end of document");
+        }
+        return buf[pos++];
+    }
+
+    private boolean fill() {
+        if (null == inputStream && (null == byteBuffer || byteBuffer.hasArray())) {
+            return false;
+        }
+        consumed += limit;
+        pos = 0;
+        limit = 0;
+        if (null != inputStream) {
+            try {
+                int n = inputStream.read(buf, 0, buf.length);
+                limit = Math.max(n, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            int n = Math.min(buf.length, byteBuffer.remaining());
+            byteBuffer.get(buf, 0, n);
+            limit = n;
+        }
+        return limit > 0;
+    }
+
+    private void readLiteral(String rest) {
+        for (int i = 0; i < rest.length(); i++) {
+            if (readByte() != rest.charAt(i)) {
+                throw syntaxError("malformed literal");
+            }
+        }
+    }
+
+    private void readNumberToken() {
+        if (peek() != Token.NUMBER) {
+            throw syntaxError("expected NUMBER but was " + peeked);
+        }
+        peeked = null;
+        readNumber();
+    }
+
+    private void readNumber() {
+        charsLength = 0;
+        while (pos < limit || fill()) {
+            int c = buf[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                append((char) c);
+                pos++;
+            } else {
+                break;
+            }
+        }
+        char last = chars[charsLength - 1];
+        if (last < '0' || last > '9') {
+            throw syntaxError("malformed number");
+        }
+    }
+
+    /**
+     * 读取开头引号之后的字符串内容，解码到复用的字符缓冲
+     */
+    private void readString() {
+        charsLength = 0;
+        while (true) {
+            int b = readByte();
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                readEscape();
+            } else if (b >= 0x20) {
+                append((char) b);
+            } else if (b >= 0) {
+                throw syntaxError("unescaped control character");
+            } else if ((b & 0xE0) == 0xC0) {
+                append((char) (((b & 0x1F) << 6) | continuation()));
+            } else if ((b & 0xF0) == 0xE0) {
+                append((char) (((b & 0x0F) << 12) | (continuation() << 6) | continuation()));
+            } else if ((b & 0xF8) == 0xF0) {
+                int codePoint = ((b & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+                append(Character.highSurrogate(codePoint));
+                append(Character.lowSurrogate(codePoint));
+            } else {
+                throw syntaxError("malformed UTF-8");
+            }
+        }
+    }
+
+    private int continuation() {
+        int b = readByte();
+        if ((b & 0xC0) != 0x80) {
+            throw syntaxError("malformed UTF-8");
+        }
+        return b & 0x3F;
+    }
+
+    private void readEscape() {
+        int c = readByte();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                append((char) c);
+                break;
+            case 'n':
+                append('\n');
+                break;
+            case 'r':
+                append('\r');
+                break;
+            case 't':
+                append('\t');
+                break;
+            case 'b':
+                append('\b');
+                break;
+            case 'f':
+                append('\f');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(readByte(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("malformed unicode escape");
+                    }
+                    value = value << 4 | digit;
+                }
+                append((char) value);
+                break;
+            default:
+                throw syntaxError("malformed escape");
+        }
+    }
+
+    private void append(char c) {
+        if (charsLength == chars.length) {
+            chars = Arrays.copyOf(chars, charsLength * 2);
+        }
+        chars[charsLength++] = c;
+    }
+
+    IllegalArgumentException syntaxError(String message) {
+        return new IllegalArgumentException(message + " at offset " + (consumed + pos));
+    }
+}
@@ -1,12 +1,231 @@
 package util.json;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * JSON 相关工具
+ * 每个类型的序列化方式在首次遇到时确定并缓存，实体类按 getter 输出，之后的序列化不再有反射
+ * 输出经过按线程复用的缓冲区直接写到 Appendable、OutputStream 或 ByteBuffer，不先拼成完整的字符串
+ * 序列化规则：Date 输出毫秒时间戳，枚举输出名称，java.time 等 JDK 值类型输出 toString，byte[] 输出 Base64
+ * 引用回当前路径上的对象（循环引用）时以 "<cycle>" 代替；嵌套超过 maxDepth 层的内容以 "..." 代替；
+ * 输出超过 maxChars 个字符时截断并以 ... 结尾，未指定限制的方法使用 DEFAULT_MAX_CHARS，防止共享引用层层展开后输出失控
+ * 反序列化直接解析 UTF-8 字节，实体类按 setter 绑定并与序列化共用属性元数据，未知属性被跳过；大数组可用 iterateArray 逐个读取元素
  * @author cszxyang
  */
 public class JsonUtils {
-    // todo
+
+    /**
+     * 默认的最大嵌套层数
+     */
+    public static final int DEFAULT_MAX_DEPTH = 64;
+
+    /**
+     * 默认的最大字符数
+     */
+    public static final long DEFAULT_MAX_CHARS = 64L * 1024 * 1024;
+
+    private JsonUtils() {}
+
+    /**
+     * 序列化为 JSON 字符串，使用默认的嵌套层数与长度限制
+     * @param o 任意对象
+     * @return JSON 字符串，超出 DEFAULT_MAX_CHARS 截断时不是合法的 JSON
+     */
     public static String toJson(Object o) {
-        return "";
+        return toJson(o, DEFAULT_MAX_DEPTH, DEFAULT_MAX_CHARS);
+    }
+
+    /**
+     * 序列化为 JSON 字符串，限制嵌套层数与长度，适合打印日志
+     * @param o 任意对象
+     * @param maxDepth 最大嵌套层数
+     * @param maxChars 最大字符数，超出时截断
+     * @return JSON 字符串，截断时不是合法的 JSON
+     */
+    public static String toJson(Object o, int maxDepth, long maxChars) {
+        JsonWriter writer = JsonWriter.acquire(maxDepth, maxChars);
+        try {
+            StringBuilder builder = writer.toStringBuilder();
+            write(o, writer);
+            return builder.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.release();
+        }
+    }
+
+    /**
+     * 序列化并写到 Appendable，例如 Writer、StringBuilder，使用默认的嵌套层数与长度限制
+     * @param o 任意对象
+     * @param out 输出
+     * @throws IOException 输出异常
+     */
+    public static void toJson(Object o, Appendable out) throws IOException {
+        toJson(o, out, DEFAULT_MAX_DEPTH, DEFAULT_MAX_CHARS);
+    }
+
+    /**
+     * 序列化并写到 Appendable，限制嵌套层数与长度
+     * @param o 任意对象
+     * @param out 输出
+     * @param maxDepth 最大嵌套层数
+     * @param maxChars 最大字符数，超出时截断
+     * @throws IOException 输出异常
+     */
+    public static void toJson(Object o, Appendable out, int maxDepth, long maxChars) throws IOException {
+        JsonWriter writer = JsonWriter.acquire(maxDepth, maxChars);
+        try {
+            writer.toAppendable(out);
+            write(o, writer);
+        } finally {
+            writer.release();
+        }
+    }
+
+    /**
+     * 序列化并按 UTF-8 写到 OutputStream，写完后 flush，不关闭，使用默认的嵌套层数与长度限制
+     * @param o 任意对象
+     * @param out 输出
+     * @throws IOException 输出异常
+     */
+    public static void toJson(Object o, OutputStream out) throws IOException {
+        JsonWriter writer = JsonWriter.acquire(DEFAULT_MAX_DEPTH, DEFAULT_MAX_CHARS);
+        try {
+            writer.toOutputStream(out);
+            write(o, writer);
+        } finally {
+            writer.release();
+        }
+    }
+
+    /**
+     * 序列化并按 UTF-8 写到 ByteBuffer，从其当前 position 开始写，使用默认的嵌套层数与长度限制
+     * @param o 任意对象
+     * @param out 输出
+     * @throws BufferOverflowException ByteBuffer 剩余空间不足
+     */
+    public static void toJson(Object o, ByteBuffer out) {
+        JsonWriter writer = JsonWriter.acquire(DEFAULT_MAX_DEPTH, DEFAULT_MAX_CHARS);
+        try {
+            writer.toByteBuffer(out);
+            write(o, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.release();
+        }
+    }
+
+    /**
+     * 反序列化 JSON 字符串
+     * @param json JSON 字符串
+     * @param type 目标类型
+     * @param <T> 目标类型
+     * @return 对象，JSON 为 null 时为 null
+     * @throws IllegalArgumentException JSON 格式错误或与目标类型不符
+     */
+    public static <T> T fromJson(String json, Class<T> type) {
+        return fromJson(json.getBytes(StandardCharsets.UTF_8), type);
+    }
+
+    /**
+     * 直接在 UTF-8 字节上反序列化，不复制输入
+     * @param json UTF-8 编码的 JSON
+     * @param type 目标类型
+     * @param <T> 目标类型
+     * @return 对象，JSON 为 null 时为 null
+     * @throws IllegalArgumentException JSON 格式错误或与目标类型不符
+     */
+    public static <T> T fromJson(byte[] json, Class<T> type) {
+        return read(new JsonReader(json), type);
+    }
+
+    /**
+     * 从输入流反序列化，输入流由调用方关闭
+     * @param in UTF-8 编码的 JSON
+     * @param type 目标类型
+     * @param <T> 目标类型
+     * @return 对象，JSON 为 null 时为 null
+     * @throws IllegalArgumentException JSON 格式错误或与目标类型不符
+     * @throws UncheckedIOException 输入流读取异常
+     */
+    public static <T> T fromJson(InputStream in, Class<T> type) {
+        return read(new JsonReader(in), type);
+    }
+
+    /**
+     * 从 ByteBuffer 的 position 到 limit 反序列化，读完后 position 移到 limit
+     * @param in UTF-8 编码的 JSON
+     * @param type 目标类型
+     * @param <T> 目标类型
+     * @return 对象，JSON 为 null 时为 null
+     * @throws IllegalArgumentException JSON 格式错误或与目标类型不符
+     */
+    public static <T> T fromJson(ByteBuffer in, Class<T> type) {
+        JsonReader reader = new JsonReader(in);
+        T value = read(reader, type);
+        in.position(in.limit());
+        return value;
+    }
+
+    /**
+     * 逐个读取顶层数组的元素
+     * @param json UTF-8 编码的 JSON 数组
+     * @param elementType 元素类型
+     * @param <T> 元素类型
+     * @return 元素迭代器
+     */
+    public static <T> JsonArrayIterator<T> iterateArray(byte[] json, Class<T> elementType) {
+        return new JsonArrayIterator<>(new JsonReader(json), elementType);
+    }
+
+    /**
+     * 逐个读取顶层数组的元素，每次只从输入流读入一块，关闭迭代器时关闭输入流
+     * @param in UTF-8 编码的 JSON 数组
+     * @param elementType 元素类型
+     * @param <T> 元素类型
+     * @return 元素迭代器
+     */
+    public static <T> JsonArrayIterator<T> iterateArray(InputStream in, Class<T> elementType) {
+        return new JsonArrayIterator<>(new JsonReader(in), elementType);
+    }
+
+    /**
+     * 逐个读取顶层数组的元素
+     * @param in UTF-8 编码的 JSON 数组
+     * @param elementType 元素类型
+     * @param <T> 元素类型
+     * @return 元素迭代器
+     */
+    public static <T> JsonArrayIterator<T> iterateArray(ByteBuffer in, Class<T> elementType) {
+        return new JsonArrayIterator<>(new JsonReader(in), elementType);
+    }
+
+    private static <T> T read(JsonReader reader, Class<T> type) {
+        T value = reader.read(type);
+        if (reader.peek() != JsonReader.Token.END_DOCUMENT) {
+            throw reader.syntaxError("expected end of document");
+        }
+        return value;
+    }
+
+    private static void write(Object o, JsonWriter writer) throws IOException {
+        try {
+            ValueWriters.writeValue(o, writer);
+        } catch (JsonWriter.LimitExceeded e) {
+            writer.writeTruncated();
+        } catch (IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("serialize json error", throwable);
+        }
+        writer.flush();
     }
 }
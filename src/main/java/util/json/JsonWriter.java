@@ -0,0 +1,368 @@
+package util.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 带缓冲的 JSON 输出，按线程复用，写满缓冲区后再整块写到 Appendable、OutputStream 或 ByteBuffer
+ * 输出长度超出限制时停止输出，嵌套层级超出限制时以 "..." 代替更深的内容，引用回当前路径上的对象时以 "<cycle>" 代替
+ *
+ * @author cszxyang
+ */
+final class JsonWriter {
+
+    /**
+     * 输出超出长度限制，只用于跳出序列化过程，不需要堆栈
+     */
+    static final class LimitExceeded extends RuntimeException {
+
+        private static final LimitExceeded INSTANCE = new LimitExceeded();
+
+        private LimitExceeded() {
+            super("json length limit exceeded", null, false, false);
+        }
+    }
+
+    static final String TRUNCATED = "...";
+
+    /**
+     * 循环引用标记，写在引用回当前路径上某个对象的位置
+     */
+    static final String CYCLE = "<cycle>";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<JsonWriter> WRITERS = ThreadLocal.withInitial(JsonWriter::new);
+
+    private final char[] buf = new char[BUFFER_SIZE];
+
+    private final StringBuilder builder = new StringBuilder();
+
+    private final char[] digits = new char[20];
+
+    private ByteBuffer bytes;
+
+    private CharsetEncoder encoder;
+
+    private int pos;
+
+    private Appendable appendable;
+
+    private OutputStream outputStream;
+
+    private ByteBuffer byteBuffer;
+
+    private int depth;
+
+    /**
+     * 当前路径上正在写出的对象、集合与数组，按引用判断，用于发现循环引用
+     */
+    private final Map<Object, Boolean> path = new IdentityHashMap<>();
+
+    private int maxDepth;
+
+    /**
+     * 还能写出的字符数
+     */
+    private long remaining;
+
+    private boolean inUse;
+
+    private JsonWriter() {
+    }
+
+    /**
+     * 取当前线程复用的输出，序列化过程中再次序列化（例如 getter 里调用了 toJson）时新建一个
+     */
+    static JsonWriter acquire(int maxDepth, long maxChars) {
+        JsonWriter writer = WRITERS.get();
+        if (writer.inUse) {
+            writer = new JsonWriter();
+        }
+        writer.inUse = true;
+        writer.pos = 0;
+        writer.depth = 0;
+        if (!writer.path.isEmpty()) {
+            // 上次序列化因异常中断时路径没有退回
+            writer.path.clear();
+        }
+        writer.maxDepth = maxDepth;
+        writer.remaining = maxChars;
+        return writer;
+    }
+
+    void release() {
+        appendable = null;
+        outputStream = null;
+        byteBuffer = null;
+        if (builder.capacity() > BUFFER_SIZE * 16) {
+            // 不长期持有超大的字符串缓冲
+            builder.setLength(0);
+            builder.trimToSize();
+        }
+        inUse = false;
+    }
+
+    StringBuilder toStringBuilder() {
+        builder.setLength(0);
+        appendable = builder;
+        return builder;
+    }
+
+    void toAppendable(Appendable appendable) {
+        this.appendable = appendable;
+    }
+
+    void toOutputStream(OutputStream outputStream) {
+        this.outputStream = outputStream;
+        prepareEncoder();
+    }
+
+    void toByteBuffer(ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer;
+        prepareEncoder();
+    }
+
+    private void prepareEncoder() {
+        if (null == encoder) {
+            // 与 String.getBytes 一致，不成对的代理字符输出为 ?，默认的 REPORT 会让编码停在出错位置
+            encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            bytes = ByteBuffer.allocate(BUFFER_SIZE * 3);
+        }
+        encoder.reset();
+    }
+
+    /**
+     * 进入不会引用自身的数组，例如基本类型数组
+     *
+     * @return 是否写出数组的内容，否则已写出 "..." 代替
+     */
+    boolean enter() throws IOException {
+        if (depth >= maxDepth) {
+            writeString(TRUNCATED);
+            return false;
+        }
+        depth++;
+        return true;
+    }
+
+    /**
+     * 进入对象、集合或数组
+     *
+     * @param value 要写出的值
+     * @return 是否写出值的内容，否则已写出 "..." 或循环引用标记代替
+     */
+    boolean enter(Object value) throws IOException {
+        if (depth >= maxDepth) {
+            writeString(TRUNCATED);
+            return false;
+        }
+        if (null != path.putIfAbsent(value, Boolean.TRUE)) {
+            writeString(CYCLE);
+            return false;
+        }
+        depth++;
+        return true;
+    }
+
+    void exit() {
+        depth--;
+    }
+
+    void exit(Object value) {
+        path.remove(value);
+        depth--;
+    }
+
+    void write(char c) throws IOException {
+        if (--remaining < 0) {
+            throw LimitExceeded.INSTANCE;
+        }
+        if (pos == buf.length) {
+            flushBuffer(false);
+        }
+        buf[pos++] = c;
+    }
+
+    void write(char[] chars) throws IOException {
+        int len = chars.length;
+        if (len >= buf.length) {
+            for (char c : chars) {
+                write(c);
+            }
+            return;
+        }
+        if (len > remaining) {
+            throw LimitExceeded.INSTANCE;
+        }
+        remaining -= len;
+        // 编码时可能留下一个代理字符，缓冲区需多留一位
+        if (pos + len > buf.length) {
+            flushBuffer(false);
+        }
+        System.arraycopy(chars, 0, buf, pos, len);
+        pos += len;
+    }
+
+    void writeRaw(String s) throws IOException {
+        for (int i = 0, len = s.length(); i < len; i++) {
+            write(s.charAt(i));
+        }
+    }
+
+    void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeRaw("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        int i = digits.length;
+        do {
+            digits[--i] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (; i < digits.length; i++) {
+            write(digits[i]);
+        }
+    }
+
+    void writeString(CharSequence s) throws IOException {
+        write('"');
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                write('\\');
+                write(c);
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                writeEscaped(c);
+            } else {
+                write(c);
+            }
+        }
+        write('"');
+    }
+
+    private void writeEscaped(char c) throws IOException {
+        write('\\');
+        switch (c) {
+            case '\n':
+                write('n');
+                break;
+            case '\r':
+                write('r');
+                break;
+            case '\t':
+                write('t');
+                break;
+            case '\b':
+                write('b');
+                break;
+            case '\f':
+                write('f');
+                break;
+            default:
+                write('u');
+                write(HEX[c >> 12 & 0xF]);
+                write(HEX[c >> 8 & 0xF]);
+                write(HEX[c >> 4 & 0xF]);
+                write(HEX[c & 0xF]);
+        }
+    }
+
+    /**
+     * 超出长度限制后写出截断标记，标记本身不计入限制
+     */
+    void writeTruncated() throws IOException {
+        remaining = Long.MAX_VALUE;
+        writeRaw(TRUNCATED);
+    }
+
+    /**
+     * 把缓冲区中剩余的内容全部写出
+     */
+    void flush() throws IOException {
+        flushBuffer(true);
+        if (null != outputStream) {
+            outputStream.flush();
+        }
+    }
+
+    private void flushBuffer(boolean endOfInput) throws IOException {
+        if (null != appendable) {
+            append(buf, 0, pos);
+            pos = 0;
+            return;
+        }
+        CharBuffer in = CharBuffer.wrap(buf, 0, pos);
+        ByteBuffer out = null != byteBuffer ? byteBuffer : bytes;
+        while (true) {
+            CoderResult result = encoder.encode(in, out, endOfInput);
+            if (endOfInput && result.isUnderflow()) {
+                result = encoder.flush(out);
+            }
+            if (null != outputStream) {
+                drainBytes();
+            } else if (result.isOverflow()) {
+                throw new BufferOverflowException();
+            }
+            if (result.isUnderflow()) {
+                break;
+            }
+        }
+        // 被截断在缓冲区末尾的代理对留到下一次编码
+        int left = in.remaining();
+        System.arraycopy(buf, in.position(), buf, 0, left);
+        pos = left;
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        outputStream.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        bytes.clear();
+    }
+
+    private void append(char[] chars, int offset, int len) throws IOException {
+        if (appendable instanceof StringBuilder) {
+            ((StringBuilder) appendable).append(chars, offset, len);
+        } else if (appendable instanceof Writer) {
+            ((Writer) appendable).write(chars, offset, len);
+        } else {
+            appendable.append(CharBuffer.wrap(chars, offset, len));
+        }
+    }
+
+    /**
+     * @return 属性名转义后的 "name": 形式
+     */
+    static char[] nameToken(String name) {
+        StringBuilder sb = new StringBuilder(name.length() + 3);
+        JsonWriter writer = new JsonWriter();
+        writer.remaining = Long.MAX_VALUE;
+        writer.appendable = sb;
+        try {
+            writer.writeString(name);
+            writer.write(':');
+            writer.flushBuffer(true);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.toString().toCharArray();
+    }
+}
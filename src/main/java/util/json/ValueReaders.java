@@ -0,0 +1,360 @@
+package util.json;
+
+import org.springframework.core.CollectionFactory;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 按类型确定反序列化方式，与 {@link ValueWriters} 的规则对应，每个类型只确定一次
+ *
+ * @author cszxyang
+ */
+final class ValueReaders {
+
+    private static final ClassValue<ValueReader> CACHE = new ClassValue<ValueReader>() {
+        @Override
+        protected ValueReader computeValue(Class<?> type) {
+            return nullable(resolve(type));
+        }
+    };
+
+    private ValueReaders() {
+    }
+
+    /**
+     * 单个类型的反序列化方式
+     */
+    @FunctionalInterface
+    interface ValueReader {
+
+        /**
+         * @param in 解析器，位于值之前
+         * @return 值
+         * @throws Throwable 格式错误或属性写入异常
+         */
+        Object read(JsonReader in) throws Throwable;
+    }
+
+    static ValueReader of(Type type) {
+        if (type instanceof Class) {
+            return CACHE.get((Class<?>) type);
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            Type[] args = parameterized.getActualTypeArguments();
+            if (Collection.class.isAssignableFrom(raw) && args.length == 1) {
+                return nullable(collectionReader(raw, args[0]));
+            }
+            if (Map.class.isAssignableFrom(raw) && args.length == 2) {
+                return nullable(mapReader(raw, args[0], args[1]));
+            }
+            return CACHE.get(raw);
+        }
+        if (type instanceof GenericArrayType) {
+            return nullable(arrayReader(((GenericArrayType) type).getGenericComponentType()));
+        }
+        if (type instanceof WildcardType) {
+            return of(((WildcardType) type).getUpperBounds()[0]);
+        }
+        // 类型变量无法确定具体类型，按 JSON 自身的结构读取
+        return CACHE.get(Object.class);
+    }
+
+    private static ValueReader nullable(ValueReader reader) {
+        return in -> {
+            if (in.peek() == JsonReader.Token.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return reader.read(in);
+        };
+    }
+
+    private static ValueReader resolve(Class<?> type) {
+        if (type.isPrimitive()) {
+            return resolve(ClassUtils.resolvePrimitiveIfNecessary(type));
+        }
+        if (Object.class == type) {
+            return ValueReaders::readNatural;
+        }
+        if (String.class == type || CharSequence.class == type) {
+            return JsonReader::nextString;
+        }
+        if (Boolean.class == type) {
+            return JsonReader::nextBoolean;
+        }
+        if (Integer.class == type) {
+            return JsonReader::nextInt;
+        }
+        if (Long.class == type) {
+            return JsonReader::nextLong;
+        }
+        if (Short.class == type) {
+            return JsonReader::nextShort;
+        }
+        if (Byte.class == type) {
+            return JsonReader::nextByte;
+        }
+        if (Double.class == type) {
+            return JsonReader::nextDouble;
+        }
+        if (Float.class == type) {
+            return in -> (float) in.nextDouble();
+        }
+        if (BigDecimal.class == type) {
+            return JsonReader::nextBigDecimal;
+        }
+        if (BigInteger.class == type) {
+            return in -> in.nextBigDecimal().toBigIntegerExact();
+        }
+        if (Number.class == type) {
+            return JsonReader::nextNumber;
+        }
+        if (Character.class == type) {
+            return in -> {
+                String s = in.nextString();
+                return s.isEmpty() ? null : s.charAt(0);
+            };
+        }
+        if (type.isEnum()) {
+            return enumReader(type);
+        }
+        if (Date.class == type) {
+            return in -> new Date(in.nextLong());
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            MethodHandle constructor = findConstructor(type, long.class);
+            return in -> constructor.invoke(in.nextLong());
+        }
+        if (Class.class == type) {
+            return in -> ClassUtils.forName(in.nextString(), null);
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return mapReader(type, String.class, Object.class);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return collectionReader(type, Object.class);
+        }
+        if (byte[].class == type) {
+            return in -> Base64.getDecoder().decode(in.nextString());
+        }
+        if (char[].class == type) {
+            return in -> in.nextString().toCharArray();
+        }
+        if (type.isArray()) {
+            return arrayReader(type.getComponentType());
+        }
+        if (type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+            // 时间、UUID、URI 等 JDK 值类型按 toString 输出，读取时按字符串解析
+            MethodHandle parser = findParser(type);
+            return in -> parser.invoke(in.nextString());
+        }
+        return new BeanReader(type);
+    }
+
+    /**
+     * 读取目标类型为 Object 的值：对象为 LinkedHashMap，数组为 ArrayList，整数为 Long 或 BigDecimal，小数为 BigDecimal
+     */
+    private static Object readNatural(JsonReader in) throws Throwable {
+        switch (in.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                in.beginObject();
+                while (in.hasNext()) {
+                    map.put(in.nextName(), readNatural(in));
+                }
+                in.endObject();
+                return map;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    list.add(readNatural(in));
+                }
+                in.endArray();
+                return list;
+            case STRING:
+                return in.nextString();
+            case NUMBER:
+                return in.nextNumber();
+            case BOOLEAN:
+                return in.nextBoolean();
+            case NULL:
+                in.nextNull();
+                return null;
+            default:
+                throw in.syntaxError("expected a value but was " + in.peek());
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValueReader enumReader(Class<?> type) {
+        return in -> Enum.valueOf((Class) type, in.nextString());
+    }
+
+    private static ValueReader collectionReader(Class<?> type, Type elementType) {
+        ValueReader elementReader = of(elementType);
+        Class<?> elementClass = elementType instanceof Class ? (Class<?>) elementType : null;
+        return in -> {
+            Collection<Object> collection = CollectionFactory.createCollection(type, elementClass, 16);
+            in.beginArray();
+            while (in.hasNext()) {
+                collection.add(elementReader.read(in));
+            }
+            in.endArray();
+            return collection;
+        };
+    }
+
+    private static ValueReader mapReader(Class<?> type, Type keyType, Type valueType) {
+        Function<String, Object> keyConverter = keyConverter(keyType);
+        ValueReader valueReader = of(valueType);
+        Class<?> keyClass = keyType instanceof Class ? (Class<?>) keyType : null;
+        return in -> {
+            Map<Object, Object> map = CollectionFactory.createMap(type, keyClass, 16);
+            in.beginObject();
+            while (in.hasNext()) {
+                map.put(keyConverter.apply(in.nextName()), valueReader.read(in));
+            }
+            in.endObject();
+            return map;
+        };
+    }
+
+    /**
+     * 对象的键只能是字符串，按声明的键类型转换
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<String, Object> keyConverter(Type keyType) {
+        if (!(keyType instanceof Class) || String.class == keyType || Object.class == keyType) {
+            return name -> name;
+        }
+        Class<?> keyClass = ClassUtils.resolvePrimitiveIfNecessary((Class<?>) keyType);
+        if (keyClass.isEnum()) {
+            return name -> Enum.valueOf((Class) keyClass, name);
+        }
+        if (Number.class.isAssignableFrom(keyClass)) {
+            return name -> org.springframework.util.NumberUtils.parseNumber(name, (Class) keyClass);
+        }
+        MethodHandle parser = findParser(keyClass);
+        return name -> {
+            try {
+                return parser.invoke(name);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("convert map key error, key=" + name, t);
+            }
+        };
+    }
+
+    private static ValueReader arrayReader(Type componentType) {
+        ValueReader elementReader = of(componentType);
+        Class<?> componentClass = componentType instanceof Class ? (Class<?>) componentType
+                : componentType instanceof ParameterizedType
+                ? (Class<?>) ((ParameterizedType) componentType).getRawType() : Object.class;
+        return in -> {
+            List<Object> elements = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                elements.add(elementReader.read(in));
+            }
+            in.endArray();
+            Object array = Array.newInstance(componentClass, elements.size());
+            for (int i = 0; i < elements.size(); i++) {
+                Object element = elements.get(i);
+                if (null != element || !componentClass.isPrimitive()) {
+                    Array.set(array, i, element);
+                }
+            }
+            return array;
+        };
+    }
+
+    private static MethodHandle findConstructor(Class<?> type, Class<?> parameterType) {
+        try {
+            return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class, parameterType));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("unsupported json type: " + type.getName(), e);
+        }
+    }
+
+    /**
+     * 依次查找 parse(CharSequence)、valueOf(String)、fromString(String) 与 String 参数的构造器
+     */
+    private static MethodHandle findParser(Class<?> type) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Object[][] candidates = {{"parse", CharSequence.class}, {"valueOf", String.class}, {"fromString", String.class}};
+        for (Object[] candidate : candidates) {
+            try {
+                MethodHandle parser = lookup.findStatic(type, (String) candidate[0],
+                        MethodType.methodType(type, (Class<?>) candidate[1]));
+                return parser.asType(MethodType.methodType(Object.class, String.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // 尝试下一种
+            }
+        }
+        if (!Modifier.isAbstract(type.getModifiers())) {
+            return findConstructor(type, String.class).asType(MethodType.methodType(Object.class, String.class));
+        }
+        throw new IllegalArgumentException("unsupported json type: " + type.getName());
+    }
+
+    /**
+     * 按 setter 反序列化的实体类，属性元数据在首次反序列化时才取，未知属性与只读属性被跳过
+     */
+    private static final class BeanReader implements ValueReader {
+
+        private final Class<?> type;
+
+        private BeanProperties properties;
+
+        BeanReader(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public Object read(JsonReader in) throws Throwable {
+            BeanProperties props = properties;
+            if (null == props) {
+                props = BeanProperties.of(type);
+                properties = props;
+            }
+            Object bean = props.newInstance();
+            in.beginObject();
+            while (in.hasNext()) {
+                BeanProperties.Property property = in.nextProperty(props);
+                if (null == property || !property.isWritable()) {
+                    in.skipValue();
+                    continue;
+                }
+                Object value = property.getReader().read(in);
+                if (null != value || !property.getType().isPrimitive()) {
+                    property.set(bean, value);
+                }
+            }
+            in.endObject();
+            return bean;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package util.json;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按类型确定序列化方式，每个类型只确定一次
+ *
+ * @author cszxyang
+ */
+final class ValueWriters {
+
+    private static final char[] NULL = "null".toCharArray();
+
+    private static final char[] TRUE = "true".toCharArray();
+
+    private static final char[] FALSE = "false".toCharArray();
+
+    private static final ClassValue<ValueWriter> CACHE = new ClassValue<ValueWriter>() {
+        @Override
+        protected ValueWriter computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    private ValueWriters() {
+    }
+
+    /**
+     * 单个类型的序列化方式
+     */
+    @FunctionalInterface
+    interface ValueWriter {
+
+        /**
+         * @param value 值，不为 null
+         * @param out   输出
+         * @throws Throwable 属性读取或输出异常
+         */
+        void write(Object value, JsonWriter out) throws Throwable;
+    }
+
+    static ValueWriter of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * 按运行时类型序列化任意值
+     */
+    static void writeValue(Object value, JsonWriter out) throws Throwable {
+        if (null == value) {
+            out.write(NULL);
+            return;
+        }
+        CACHE.get(value.getClass()).write(value, out);
+    }
+
+    private static ValueWriter resolve(Class<?> type) {
+        if (type.isPrimitive()) {
+            return of(org.springframework.util.ClassUtils.resolvePrimitiveIfNecessary(type));
+        }
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return (value, out) -> out.writeString((CharSequence) value);
+        }
+        if (Boolean.class == type) {
+            return (value, out) -> out.write((Boolean) value ? TRUE : FALSE);
+        }
+        if (Integer.class == type || Long.class == type || Short.class == type || Byte.class == type
+                || AtomicInteger.class == type || AtomicLong.class == type) {
+            return (value, out) -> out.writeLong(((Number) value).longValue());
+        }
+        if (Double.class == type || Float.class == type) {
+            return (value, out) -> {
+                double d = ((Number) value).doubleValue();
+                if (Double.isNaN(d) || Double.isInfinite(d)) {
+                    out.write(NULL);
+                } else {
+                    out.writeRaw(value.toString());
+                }
+            };
+        }
+        if (BigDecimal.class == type || BigInteger.class == type || Number.class.isAssignableFrom(type)) {
+            return (value, out) -> out.writeRaw(value.toString());
+        }
+        if (Character.class == type) {
+            return (value, out) -> out.writeString(String.valueOf(value));
+        }
+        if (Enum.class.isAssignableFrom(type)) {
+            return (value, out) -> out.writeString(((Enum<?>) value).name());
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return (value, out) -> out.writeLong(((Date) value).getTime());
+        }
+        if (Class.class == type) {
+            return (value, out) -> out.writeString(((Class<?>) value).getName());
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return ValueWriters::writeMap;
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            return ValueWriters::writeIterable;
+        }
+        if (byte[].class == type) {
+            return (value, out) -> out.writeString(Base64.getEncoder().encodeToString((byte[]) value));
+        }
+        if (char[].class == type) {
+            return (value, out) -> out.writeString(new String((char[]) value));
+        }
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? ValueWriters::writePrimitiveArray : ValueWriters::writeArray;
+        }
+        if (type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+            // 时间、UUID、URI 等 JDK 值类型按 toString 输出
+            return (value, out) -> out.writeString(value.toString());
+        }
+        return new BeanWriter(type);
+    }
+
+    private static void writeMap(Object value, JsonWriter out) throws Throwable {
+        if (!out.enter(value)) {
+            return;
+        }
+        out.write('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            Object key = entry.getKey();
+            out.writeString(key instanceof Enum ? ((Enum<?>) key).name() : String.valueOf(key));
+            out.write(':');
+            writeValue(entry.getValue(), out);
+        }
+        out.write('}');
+        out.exit(value);
+    }
+
+    private static void writeIterable(Object value, JsonWriter out) throws Throwable {
+        if (!out.enter(value)) {
+            return;
+        }
+        out.write('[');
+        boolean first = true;
+        for (Object element : (Iterable<?>) value) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            writeValue(element, out);
+        }
+        out.write(']');
+        out.exit(value);
+    }
+
+    private static void writeArray(Object value, JsonWriter out) throws Throwable {
+        if (!out.enter(value)) {
+            return;
+        }
+        out.write('[');
+        Object[] array = (Object[]) value;
+        for (int i = 0; i < array.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeValue(array[i], out);
+        }
+        out.write(']');
+        out.exit(value);
+    }
+
+    private static void writePrimitiveArray(Object value, JsonWriter out) throws Throwable {
+        if (!out.enter()) {
+            return;
+        }
+        out.write('[');
+        for (int i = 0, len = Array.getLength(value); i < len; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeValue(Array.get(value, i), out);
+        }
+        out.write(']');
+        out.exit();
+    }
+
+    /**
+     * 按 getter 序列化的实体类，属性元数据在首次序列化时才取，避免编译属性元数据时相互递归
+     */
+    private static final class BeanWriter implements ValueWriter {
+
+        private final Class<?> type;
+
+        private BeanProperties.Property[] properties;
+
+        BeanWriter(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public void write(Object value, JsonWriter out) throws Throwable {
+            if (!out.enter(value)) {
+                return;
+            }
+            BeanProperties.Property[] props = properties;
+            if (null == props) {
+                props = BeanProperties.of(type).getProperties();
+                properties = props;
+            }
+            out.write('{');
+            boolean first = true;
+            for (BeanProperties.Property property : props) {
+                if (!property.isReadable()) {
+                    continue;
+                }
+                Object propertyValue = property.get(value);
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                out.write(property.getNameToken());
+                ValueWriter fixedWriter = property.getFixedWriter();
+                if (null == propertyValue) {
+                    out.write(NULL);
+                } else if (null != fixedWriter) {
+                    fixedWriter.write(propertyValue, out);
+                } else {
+                    writeValue(propertyValue, out);
+                }
+            }
+            out.write('}');
+            out.exit(value);
+        }
+    }
+}
@@ -6,10 +6,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ParallelTaskProcessorTest {
 
@@ -90,6 +103,368 @@ public class ParallelTaskProcessorTest {
         Assert.assertArrayEquals(new Integer[]{2, 3}, integers.toArray(new Integer[0]));
     }
 
+    @Test
+    public void testProcAsyncStream() {
+        List<Supplier<Integer>> suppliers = new ArrayList<>();
+        suppliers.add(() -> {
+            sleepMillis(600);
+            return 1;
+        });
+        suppliers.add(() -> {
+            sleepMillis(100);
+            return 2;
+        });
+        suppliers.add(() -> null);
+        suppliers.add(() -> {
+            sleepMillis(300);
+            return 3;
+        });
+        long start = System.currentTimeMillis();
+        Iterator<Integer> iterator = ParallelTaskProcessor.procAsyncIterator(suppliers, 4);
+        Assert.assertEquals(2, (int) iterator.next());
+        Assert.assertTrue(System.currentTimeMillis() - start < 600);
+        Assert.assertEquals(3, (int) iterator.next());
+        Assert.assertEquals(1, (int) iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testProcAsyncStreamBackpressure() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Supplier<Integer>> suppliers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int value = i;
+            suppliers.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleepMillis(20);
+                running.decrementAndGet();
+                return value;
+            });
+        }
+        try (Stream<Integer> stream = ParallelTaskProcessor.procAsyncStream(suppliers, 3)) {
+            Assert.assertEquals(190, stream.mapToInt(Integer::intValue).sum());
+        }
+        Assert.assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void testProcAsyncFailFast() {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        List<Supplier<Integer>> suppliers = new ArrayList<>();
+        suppliers.add(() -> {
+            sleepMillis(100);
+            return 5 / 0;
+        });
+        suppliers.add(() -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            return 1;
+        });
+        ProcOptions options = ProcOptions.builder().policy(ProcPolicy.FAIL_FAST).build();
+        long start = System.currentTimeMillis();
+        try {
+            ParallelTaskProcessor.procAsync(suppliers, false, options);
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof ArithmeticException);
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+        sleepMillis(200);
+        Assert.assertTrue(interrupted.get());
+    }
+
+    @Test
+    public void testProcAsyncBestEffort() {
+        List<Supplier<Integer>> suppliers = prepareSuppliers();
+        suppliers.add(() -> 1 / 0);
+        ProcOptions options = ProcOptions.builder()
+                .deadline(Duration.ofMillis(1500))
+                .policy(ProcPolicy.BEST_EFFORT)
+                .build();
+        long start = System.currentTimeMillis();
+        Collection<Integer> integers = ParallelTaskProcessor.procAsync(suppliers, false, options);
+        Assert.assertTrue(System.currentTimeMillis() - start < 4000);
+        Assert.assertArrayEquals(new Integer[]{2}, integers.toArray(new Integer[0]));
+    }
+
+    @Test
+    public void testProcAsyncTaskTimeout() {
+        List<Supplier<Integer>> suppliers = prepareSuppliers();
+        ProcOptions options = ProcOptions.builder().taskTimeout(Duration.ofMillis(200)).build();
+        try {
+            ParallelTaskProcessor.procAsync(suppliers, false, options);
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void testProcAsyncVirtualThread() {
+        List<Supplier<String>> suppliers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            suppliers.add(() -> {
+                sleepMillis(50);
+                return Thread.currentThread().getName();
+            });
+        }
+        ProcOptions options = ProcOptions.builder().backend(ExecutionBackend.VIRTUAL_THREAD).build();
+        long start = System.currentTimeMillis();
+        Collection<String> threadNames = ParallelTaskProcessor.procAsync(suppliers, false, options);
+        Assert.assertEquals(200, threadNames.size());
+        if (ParallelTaskProcessor.isVirtualThreadSupported()) {
+            Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+            Assert.assertTrue(threadNames.stream().allMatch(name -> name.startsWith("parallel_supplier_vt-")));
+        }
+    }
+
+    @Test
+    public void testProcPartitioned() {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add(i);
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Function<List<Integer>, Collection<Integer>> loader = batch -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Assert.assertTrue(batch.size() <= 64);
+            // later batches finish first
+            sleepMillis(40 - batch.get(0) / 30);
+            running.decrementAndGet();
+            return batch.stream().map(key -> key * 2).collect(Collectors.toList());
+        };
+        try (Stream<Integer> stream = ParallelTaskProcessor.procPartitioned(keys, 64, 4, true, loader)) {
+            List<Integer> values = stream.collect(Collectors.toList());
+            Assert.assertEquals(1000, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                Assert.assertEquals(i * 2, (int) values.get(i));
+            }
+        }
+        try (Stream<Integer> stream = ParallelTaskProcessor.procPartitioned(keys, 64, 4, false, loader)) {
+            Assert.assertEquals(999 * 1000, stream.mapToInt(Integer::intValue).sum());
+        }
+        Assert.assertTrue(maxRunning.get() <= 4);
+    }
+
+    @Test
+    public void testProcAsyncBulkhead() {
+        BulkheadRegistry.register("test_bulkhead", BulkheadConfig.builder()
+                .corePoolSize(2)
+                .maxPoolSize(2)
+                .queueCapacity(10)
+                .build());
+        Assert.assertFalse(BulkheadRegistry.isCreated("test_bulkhead"));
+        List<Supplier<String>> suppliers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            suppliers.add(() -> Thread.currentThread().getName());
+        }
+        ProcOptions options = ProcOptions.builder().bulkhead("test_bulkhead").build();
+        Collection<String> threadNames = ParallelTaskProcessor.procAsync(suppliers, true, options);
+        Assert.assertTrue(BulkheadRegistry.isCreated("test_bulkhead"));
+        Assert.assertTrue(threadNames.size() <= 2);
+        Assert.assertTrue(threadNames.stream().allMatch(name -> name.startsWith("bulkhead_test_bulkhead_")));
+        try {
+            BulkheadRegistry.register("test_bulkhead", BulkheadConfig.builder().build());
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testProcAsyncManyTasks() {
+        List<Supplier<Integer>> suppliers = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int value = i;
+            suppliers.add(() -> value % 1000);
+        }
+        Assert.assertEquals(2000, ParallelTaskProcessor.procAsync(suppliers, false).size());
+        Assert.assertEquals(1000, ParallelTaskProcessor.procAsync(suppliers, true).size());
+        ProcOptions ordered = ProcOptions.builder().ordered(true).build();
+        Collection<Integer> integers = ParallelTaskProcessor.procAsync(suppliers, true, ordered);
+        int expected = 0;
+        for (Integer integer : integers) {
+            Assert.assertEquals(expected++, (int) integer);
+        }
+    }
+
+    @Test
+    public void testTaskGroup() {
+        TaskGroup group = new TaskGroup();
+        TaskGroup.Handle<String> name = group.add(() -> "awesome");
+        TaskGroup.Handle<Integer> count = group.add(() -> {
+            sleepMillis(100);
+            return 3;
+        });
+        TaskGroup.Handle<List<Integer>> list = group.add(() -> Arrays.asList(1, 2));
+        TaskGroup.Handle<Long> nothing = group.add(() -> null);
+        group.join();
+        Assert.assertEquals("awesome", name.get());
+        Assert.assertEquals(3, (int) count.get());
+        Assert.assertEquals(Arrays.asList(1, 2), list.get());
+        Assert.assertNull(nothing.get());
+        Assert.assertTrue(nothing.isSuccess());
+    }
+
+    @Test
+    public void testProcAsyncSingleFlight() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>(Duration.ofSeconds(1), 2);
+        AtomicInteger calls = new AtomicInteger();
+        Function<Integer, String> loader = key -> {
+            calls.incrementAndGet();
+            sleepMillis(300);
+            return 4 == key ? null : "v" + key;
+        };
+        // a concurrent call of overlapping keys joins the running loads
+        Thread other = new Thread(() -> ParallelTaskProcessor.procAsync(Arrays.asList(2, 3), loader, flight));
+        other.start();
+        Map<Integer, String> res = ParallelTaskProcessor.procAsync(Arrays.asList(1, 2, 2, 3, 4), loader, flight);
+        other.join();
+        Assert.assertEquals(Arrays.asList(1, 2, 3), new ArrayList<>(res.keySet()));
+        Assert.assertEquals("v2", res.get(2));
+        Assert.assertEquals(4, calls.get());
+        Assert.assertEquals(2, flight.getCoalesced());
+
+        // two results are left in the cache
+        ParallelTaskProcessor.procAsync(Arrays.asList(1, 2, 3, 4), loader, flight);
+        Assert.assertEquals(6, calls.get());
+        Assert.assertEquals(2, flight.getHits());
+
+        sleepMillis(1100);
+        ParallelTaskProcessor.procAsync(Arrays.asList(1, 2), loader, flight);
+        Assert.assertEquals(8, calls.get());
+
+        Function<Integer, String> failing = key -> {
+            throw new IllegalStateException("down");
+        };
+        for (int i = 0; i < 2; i++) {
+            try {
+                ParallelTaskProcessor.procAsync(Arrays.asList(5), failing, flight);
+                Assert.fail();
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        Assert.assertEquals(2, flight.getLoads() - 8);
+    }
+
+    @Test
+    public void testProcAsyncListener() {
+        // a single thread without queue, so that the pool rejects the second task to the caller
+        BulkheadRegistry.register("profiled_bulkhead", BulkheadConfig.builder()
+                .corePoolSize(1)
+                .maxPoolSize(1)
+                .queueCapacity(0)
+                .rejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy())
+                .build());
+        AtomicReference<ProcProfile> profile = new AtomicReference<>();
+        ProcOptions options = ProcOptions.builder()
+                .bulkhead("profiled_bulkhead")
+                .listener(profile::set)
+                .build();
+        List<Supplier<Integer>> suppliers = new ArrayList<>();
+        for (int millis : new int[]{300, 100}) {
+            suppliers.add(() -> {
+                sleepMillis(millis);
+                return millis;
+            });
+        }
+        suppliers.add(null);
+        Assert.assertEquals(2, ParallelTaskProcessor.procAsync(suppliers, false, options).size());
+        List<TaskProfile> tasks = profile.get().getTasks();
+        Assert.assertEquals(2, tasks.size());
+        Assert.assertEquals(ThreadKind.POOL, tasks.get(0).getThreadKind());
+        Assert.assertEquals(ThreadKind.CALLER, tasks.get(1).getThreadKind());
+        Assert.assertSame(tasks.get(0), profile.get().getSlowest());
+        Assert.assertTrue(tasks.get(0).getRunNanos() >= 300_000_000L);
+        Assert.assertEquals(Collections.singletonList(tasks.get(0)), profile.get().getCriticalPath());
+
+        // served by the cache, the task of a keyed call has an end but did not run
+        SingleFlight<Integer, Integer> flight = new SingleFlight<>(Duration.ofMinutes(1), 10);
+        ParallelTaskProcessor.procAsync(Arrays.asList(1), key -> key, flight);
+        ParallelTaskProcessor.procAsync(Arrays.asList(1, 2), key -> key, flight, options);
+        tasks = profile.get().getTasks();
+        Assert.assertEquals(1, tasks.get(0).getSource());
+        Assert.assertEquals(-1, tasks.get(0).getRunNanos());
+        Assert.assertNull(tasks.get(0).getThreadKind());
+        Assert.assertTrue(tasks.get(0).getEndOffsetNanos() >= 0);
+        Assert.assertNotNull(tasks.get(1).getThreadKind());
+    }
+
+    @Test
+    public void testProcAsyncNestedWorkStealing() {
+        ProcOptions options = ProcOptions.builder().backend(ExecutionBackend.WORK_STEALING).build();
+        List<Supplier<Integer>> parents = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            parents.add(() -> {
+                List<Supplier<Integer>> children = new ArrayList<>();
+                for (int j = 0; j < 4; j++) {
+                    children.add(() -> {
+                        sleepMillis(5);
+                        return 1;
+                    });
+                }
+                return ParallelTaskProcessor.procAsync(children, false, options).size();
+            });
+        }
+        ProcOptions deadline = ProcOptions.builder()
+                .backend(ExecutionBackend.WORK_STEALING)
+                .deadline(Duration.ofSeconds(10))
+                .build();
+        Collection<Integer> sizes = ParallelTaskProcessor.procAsync(parents, false, deadline);
+        Assert.assertEquals(100, sizes.size());
+        Assert.assertTrue(sizes.stream().allMatch(size -> size == 4));
+
+        ProcOptions batch = ProcOptions.builder()
+                .backend(ExecutionBackend.WORK_STEALING)
+                .priority(TaskPriority.BATCH)
+                .build();
+        List<Supplier<String>> suppliers = new ArrayList<>();
+        suppliers.add(() -> Thread.currentThread().getName());
+        Assert.assertTrue(ParallelTaskProcessor.procAsync(suppliers, false, batch).iterator().next()
+                .startsWith("parallel_supplier_batch-"));
+    }
+
+    @Test
+    public void testProcAsyncNestedTimeout() {
+        ProcOptions inner = ProcOptions.builder()
+                .backend(ExecutionBackend.WORK_STEALING)
+                .taskTimeout(Duration.ofMillis(30))
+                .build();
+        List<Supplier<Boolean>> parents = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            parents.add(() -> {
+                List<Supplier<Integer>> children = new ArrayList<>();
+                for (int j = 0; j < 4; j++) {
+                    children.add(() -> {
+                        // CPU bound, ignores the interrupt of its timeout
+                        long end = System.nanoTime() + 100_000_000L;
+                        int spins = 0;
+                        while (System.nanoTime() < end) {
+                            spins++;
+                        }
+                        return spins > 0 ? 1 : 0;
+                    });
+                }
+                try {
+                    ParallelTaskProcessor.procAsync(children, false, inner);
+                    return false;
+                } catch (CompletionException e) {
+                    // the timeout of a child run inline must not leave the worker interrupted
+                    return !Thread.currentThread().isInterrupted();
+                }
+            });
+        }
+        ProcOptions outer = ProcOptions.builder().backend(ExecutionBackend.WORK_STEALING).build();
+        Collection<Boolean> results = ParallelTaskProcessor.procAsync(parents, false, outer);
+        Assert.assertEquals(4, results.size());
+        Assert.assertTrue(results.stream().allMatch(Boolean::booleanValue));
+    }
+
     private List<Supplier<Integer>> prepareSuppliers() {
         List<Supplier<Integer>> suppliers = new ArrayList<>();
         suppliers.add(() -> {
@@ -107,6 +482,14 @@ public class ParallelTaskProcessorTest {
         return suppliers;
     }
 
+    private void sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void sleepSeconds(int seconds) {
         try {
             Thread.sleep(seconds * 1000);
@@ -0,0 +1,93 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+public class TaskGraphTest {
+
+    @Test
+    public void testExecute() {
+        TaskGraph graph = new TaskGraph();
+        TaskGraph.Node<Integer> slow = graph.add("slow", () -> {
+            sleepMillis(400);
+            return 1;
+        });
+        TaskGraph.Node<Integer> fast = graph.add("fast", () -> {
+            sleepMillis(100);
+            return 2;
+        });
+        TaskGraph.Node<Integer> afterFast = graph.add("afterFast", fast, f -> {
+            sleepMillis(100);
+            return f * 10;
+        });
+        TaskGraph.Node<String> join = graph.add("join", slow, fast, afterFast, (s, f, a) -> {
+            sleepMillis(100);
+            return s + "," + f + "," + a;
+        });
+        TaskGraph.Node<Integer> sum = graph.addAll("sum", Arrays.asList(slow, fast, afterFast),
+                values -> values.stream().mapToInt(Integer::intValue).sum());
+
+        TaskGraph.Result result = graph.execute();
+        Assert.assertEquals("1,2,20", result.get(join));
+        Assert.assertEquals(23, (int) result.get(sum));
+        // afterFast runs while slow is still running
+        Assert.assertTrue(result.getTiming(afterFast).getEndOffsetNanos() < result.getTiming(slow).getEndOffsetNanos());
+        Assert.assertTrue(result.getElapsedNanos() < 800_000_000L);
+        List<String> criticalPath = result.getCriticalPath().stream()
+                .map(TaskGraph.NodeTiming::getName)
+                .collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("slow", "join"), criticalPath);
+
+        // nodes added afterwards are not part of the execution
+        TaskGraph.Node<Integer> late = graph.add("late", () -> 0);
+        Assert.assertEquals(criticalPath, result.getCriticalPath().stream()
+                .map(TaskGraph.NodeTiming::getName)
+                .collect(Collectors.toList()));
+        Assert.assertEquals(5, result.getTimings().size());
+        try {
+            result.get(late);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        AtomicReference<ProcProfile> profile = new AtomicReference<>();
+        graph.execute(ProcOptions.builder().listener(profile::set).build());
+        Assert.assertEquals(6, profile.get().getTasks().size());
+        Assert.assertEquals("slow", profile.get().getSlowest().getSource());
+        Assert.assertEquals(Arrays.asList("slow", "join"), profile.get().getCriticalPath().stream()
+                .map(TaskProfile::getSource)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFailedDependency() {
+        TaskGraph graph = new TaskGraph();
+        TaskGraph.Node<Integer> broken = graph.add("broken", () -> 1 / 0);
+        TaskGraph.Node<Integer> fine = graph.add("fine", () -> 1);
+        TaskGraph.Node<Integer> dependent = graph.add("dependent", broken, b -> b + 1);
+        try {
+            graph.execute();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof ArithmeticException);
+        }
+        TaskGraph.Result result = graph.execute(ProcOptions.builder().policy(ProcPolicy.BEST_EFFORT).build());
+        Assert.assertEquals(1, (int) result.get(fine));
+        Assert.assertNull(result.get(dependent));
+        Assert.assertEquals(-1, result.getTiming(dependent).getStartOffsetNanos());
+    }
+
+    private void sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.cszxyang.devtools.concurrent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VisualThreadPoolTaskExecutorTest {
+
+    @Test
+    public void testMetrics() throws Exception {
+        VisualThreadPoolTaskExecutor executor = new VisualThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("metrics_test_");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            executor.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            started.await();
+            executor.execute(() -> sleepMillis(10));
+            // pool and queue are full, so the caller runs this one
+            executor.execute(() -> sleepMillis(10));
+            ThreadPoolMetrics metrics = executor.getMetrics();
+            Assert.assertEquals(1, metrics.getActiveCount());
+            Assert.assertEquals(1, metrics.getQueueSize());
+            Assert.assertEquals(1, metrics.getRejectedCount());
+            Assert.assertEquals(1, metrics.getCallerRunsCount());
+            release.countDown();
+            executor.getThreadPoolExecutor().shutdown();
+            Assert.assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+            Assert.assertEquals(3, metrics.getSubmittedCount());
+            Assert.assertEquals(3, metrics.getCompletedCount());
+            Assert.assertEquals(0, metrics.getActiveCount());
+            Assert.assertTrue(metrics.getRunTimeP99Micros() >= 10_000);
+            Assert.assertTrue(metrics.getQueueWait().getCount() == 3);
+            ObjectName name = new ObjectName("com.github.cszxyang.devtools:type=ThreadPool,name=\"metrics_test_\"");
+            Assert.assertEquals(3L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "CompletedCount"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSubmitAndDecorator() throws Exception {
+        VisualThreadPoolTaskExecutor executor = new VisualThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setThreadNamePrefix("submit_test_");
+        AtomicInteger decorated = new AtomicInteger();
+        executor.setTaskDecorator(task -> () -> {
+            decorated.incrementAndGet();
+            task.run();
+        });
+        executor.initialize();
+        try {
+            Assert.assertEquals("done", executor.submit(() -> "done").get(5, TimeUnit.SECONDS));
+            CountDownLatch ran = new CountDownLatch(1);
+            executor.execute(ran::countDown);
+            Assert.assertTrue(ran.await(5, TimeUnit.SECONDS));
+            executor.setCorePoolSize(3);
+            Assert.assertEquals(3, executor.getThreadPoolExecutor().getCorePoolSize());
+            executor.getThreadPoolExecutor().shutdown();
+            Assert.assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+            Assert.assertEquals(2, decorated.get());
+            Assert.assertEquals(2, executor.getMetrics().getCompletedCount());
+            Assert.assertEquals(2, executor.getMetrics().getQueueWait().getCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdaptiveSizing() throws Exception {
+        VisualThreadPoolTaskExecutor executor = new VisualThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("adaptive_test_");
+        executor.setAdaptiveSizing(AdaptiveSizingPolicy.builder()
+                .minCorePoolSize(2)
+                .maxCorePoolSize(16)
+                .targetQueueWaitMillis(5)
+                .intervalMillis(50)
+                .build());
+        executor.initialize();
+        try {
+            CountDownLatch done = new CountDownLatch(200);
+            for (int i = 0; i < 200; i++) {
+                executor.execute(() -> {
+                    sleepMillis(20);
+                    done.countDown();
+                });
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (executor.getCorePoolSize() < 16 && System.currentTimeMillis() < deadline) {
+                sleepMillis(20);
+            }
+            Assert.assertEquals(16, executor.getCorePoolSize());
+            Assert.assertEquals(16, executor.getMaxPoolSize());
+            Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+            deadline = System.currentTimeMillis() + 5000;
+            while (executor.getCorePoolSize() > 2 && System.currentTimeMillis() < deadline) {
+                sleepMillis(20);
+            }
+            Assert.assertEquals(2, executor.getCorePoolSize());
+            // the max size grown with the core size goes back to its configured bound
+            Assert.assertEquals(2, executor.getMaxPoolSize());
+            Assert.assertEquals(2, executor.getThreadPoolExecutor().getMaximumPoolSize());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSlowTaskWatchdog() throws Exception {
+        VisualThreadPoolTaskExecutor executor = new VisualThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setThreadNamePrefix("watchdog_test_");
+        executor.setSlowTaskThresholdMillis(100);
+        executor.initialize();
+        try {
+            CountDownLatch done = new CountDownLatch(2);
+            executor.execute(() -> {
+                sleepMillis(400);
+                done.countDown();
+            });
+            executor.execute(done::countDown);
+            Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+            SlowTaskWatchdog watchdog = executor.getWatchdog();
+            // the slot is released right after the latch
+            sleepMillis(50);
+            Assert.assertEquals(0, watchdog.getSlowTaskCount());
+            Assert.assertFalse(watchdog.getReports().isEmpty());
+            SlowTaskWatchdog.SlowTaskReport report = watchdog.getReports().get(0);
+            Assert.assertTrue(report.getThreadName().startsWith("watchdog_test_"));
+            Assert.assertTrue(report.getSubmissionSite().startsWith(VisualThreadPoolTaskExecutorTest.class.getName()));
+            Assert.assertTrue(report.getRunningMillis() >= 100);
+            Assert.assertTrue(report.formatStack().contains("sleepMillis"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getPercentileNanos(99));
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1_000_000);
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals((99 * 1000 + 1_000_000) / 100, histogram.getMeanNanos());
+        Assert.assertEquals(1023, histogram.getPercentileNanos(50));
+        Assert.assertEquals(1023, histogram.getPercentileNanos(99));
+        Assert.assertEquals((1 << 20) - 1, histogram.getPercentileNanos(100));
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package interceptor;
+
+import annotation.EraseDefaultTime;
+import annotation.EraseNested;
+import annotation.EraseSentinel;
+import annotation.EraseTarget;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.TimeZone;
+
+public class DefaultTimeEraserTest {
+
+    private static final Date DEFAULT_DATE = Date.from(LocalDateTime.of(1970, 1, 1, 0, 0)
+            .atZone(ZoneId.systemDefault()).toInstant());
+
+    private final DefaultTimeEraser eraser = new DefaultTimeEraser();
+
+    @Test
+    public void testEraseDomain() throws Throwable {
+        Date now = new Date();
+        List<Object> rows = new ArrayList<>();
+        rows.add(null);
+        rows.add(new Order(new Date(DEFAULT_DATE.getTime()), new Date(DEFAULT_DATE.getTime())));
+        rows.add(new Order(now, null));
+        Object result = eraser.intercept(invocationReturning(rows));
+        Assert.assertSame(rows, result);
+        Assert.assertNull(rows.get(0));
+        Order first = (Order) rows.get(1);
+        Assert.assertNull(first.payTime);
+        Assert.assertEquals(DEFAULT_DATE, first.createTime);
+        Order second = (Order) rows.get(2);
+        Assert.assertEquals(now, second.payTime);
+    }
+
+    @Test
+    public void testEraseSingleColumn() throws Throwable {
+        Date now = new Date();
+        List<Object> rows = new ArrayList<>();
+        rows.add(new Date(DEFAULT_DATE.getTime()));
+        rows.add(now);
+        eraser.intercept(invocationReturning(rows));
+        Assert.assertNull(rows.get(0));
+        Assert.assertEquals(now, rows.get(1));
+    }
+
+    @Test
+    public void testIgnoreNonTarget() throws Throwable {
+        Plain plain = new Plain();
+        plain.payTime = new Date(DEFAULT_DATE.getTime());
+        List<Object> rows = new ArrayList<>();
+        rows.add(plain);
+        eraser.intercept(invocationReturning(rows));
+        Assert.assertEquals(DEFAULT_DATE, plain.payTime);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEraseCursor() throws Throwable {
+        Date now = new Date();
+        Order order = new Order(new Date(DEFAULT_DATE.getTime()), now);
+        ListCursor<Object> source = new ListCursor<>(Arrays.asList(order, new Date(DEFAULT_DATE.getTime()), now));
+        ResultSetHandler handler = new StubResultSetHandler(source);
+        Method method = ResultSetHandler.class.getMethod("handleCursorResultSets", Statement.class);
+        Cursor<Object> cursor = (Cursor<Object>) eraser.intercept(new Invocation(handler, method, new Object[]{null}));
+        Iterator<Object> iterator = cursor.iterator();
+        Assert.assertSame(order, iterator.next());
+        Assert.assertNull(order.payTime);
+        Assert.assertNull(iterator.next());
+        Assert.assertEquals(now, iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+        cursor.close();
+        Assert.assertFalse(source.isOpen());
+    }
+
+    @Test
+    public void testEraseResultHandler() throws Throwable {
+        Date now = new Date();
+        Order order = new Order(new Date(DEFAULT_DATE.getTime()), now);
+        List<Object> rows = Arrays.asList(order, new Date(DEFAULT_DATE.getTime()), now);
+        Executor executor = (Executor) Proxy.newProxyInstance(Executor.class.getClassLoader(),
+                new Class<?>[]{Executor.class}, (proxy, m, args) -> {
+                    // 模拟 MyBatis 逐行映射并回调 ResultHandler
+                    @SuppressWarnings("unchecked")
+                    ResultHandler<Object> resultHandler = (ResultHandler<Object>) args[3];
+                    DefaultResultContext<Object> context = new DefaultResultContext<>();
+                    for (Object row : rows) {
+                        context.nextResultObject(row);
+                        resultHandler.handleResult(context);
+                    }
+                    return new ArrayList<>();
+                });
+        List<Object> handled = new ArrayList<>();
+        ResultHandler<Object> resultHandler = context -> handled.add(context.getResultObject());
+        Method method = Executor.class.getMethod("query", MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class);
+        eraser.intercept(new Invocation(executor, method, new Object[]{null, null, RowBounds.DEFAULT, resultHandler}));
+        Assert.assertEquals(3, handled.size());
+        Assert.assertSame(order, handled.get(0));
+        Assert.assertNull(order.payTime);
+        Assert.assertNull(handled.get(1));
+        Assert.assertEquals(now, handled.get(2));
+    }
+
+    @Test
+    public void testPrecompute() {
+        Assert.assertEquals(1, eraser.precompute("interceptor.scan"));
+        Configuration configuration = new Configuration();
+        configuration.addResultMap(new ResultMap.Builder(configuration, "order", Order.class,
+                new ArrayList<>()).build());
+        configuration.addResultMap(new ResultMap.Builder(configuration, "plain", Plain.class,
+                new ArrayList<>()).build());
+        Assert.assertEquals(1, eraser.precompute(configuration));
+        Assert.assertNotNull(eraser.planOf(Order.class));
+        Assert.assertNull(eraser.planOf(Plain.class));
+
+        Properties properties = new Properties();
+        properties.setProperty(DefaultTimeEraser.SCAN_PACKAGES, "interceptor.scan, annotation");
+        new DefaultTimeEraser().setProperties(properties);
+    }
+
+    @Test
+    public void testEraseSentinels() throws Throwable {
+        Account account = new Account();
+        account.lastLogin = LocalDateTime.of(1970, 1, 1, 0, 0);
+        account.closedAt = Timestamp.valueOf("1970-01-01 00:00:00");
+        account.level = 0;
+        account.score = -1L;
+        account.balance = new BigDecimal("-1.00");
+        account.nickname = "";
+        account.remark = "N/A";
+        Account other = new Account();
+        other.level = 3;
+        other.score = 7L;
+        other.balance = BigDecimal.TEN;
+        other.nickname = "cs";
+        other.remark = "ok";
+        List<Object> rows = new ArrayList<>();
+        rows.add(account);
+        rows.add(other);
+        eraser.intercept(invocationReturning(rows));
+        Assert.assertNull(account.lastLogin);
+        Assert.assertNull(account.closedAt);
+        Assert.assertNull(account.level);
+        Assert.assertNull(account.score);
+        Assert.assertNull(account.balance);
+        Assert.assertNull(account.nickname);
+        Assert.assertNull(account.remark);
+        Assert.assertEquals(Integer.valueOf(3), other.level);
+        Assert.assertEquals(Long.valueOf(7), other.score);
+        Assert.assertEquals(BigDecimal.TEN, other.balance);
+        Assert.assertEquals("cs", other.nickname);
+        Assert.assertEquals("ok", other.remark);
+    }
+
+    @Test
+    public void testEraseNested() throws Throwable {
+        Account account = new Account();
+        account.nickname = "";
+        account.orders = new ArrayList<>();
+        account.orders.add(new Order(new Date(DEFAULT_DATE.getTime()), null));
+        account.orders.add(null);
+        account.self = account;
+        List<Object> rows = new ArrayList<>();
+        rows.add(account);
+        eraser.intercept(invocationReturning(rows));
+        Assert.assertNull(account.nickname);
+        Assert.assertNull(account.orders.get(0).payTime);
+    }
+
+    @Test
+    public void testEraseAcrossTimeZones() throws Throwable {
+        TimeZone timeZone = TimeZone.getDefault();
+        try {
+            // 驱动按当前时区把 1970-01-01 00:00:00 转换为 Date，时区改变后依然能识别
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+            Order order = new Order(Timestamp.valueOf("1970-01-01 00:00:00"), null);
+            List<Object> rows = new ArrayList<>();
+            rows.add(order);
+            rows.add(Timestamp.valueOf("1970-01-01 00:00:00"));
+            eraser.intercept(invocationReturning(rows));
+            Assert.assertNull(order.payTime);
+            Assert.assertNull(rows.get(1));
+        } finally {
+            TimeZone.setDefault(timeZone);
+        }
+    }
+
+    @Test
+    public void testKeepAfterTimeZoneChange() throws Throwable {
+        TimeZone timeZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+            long millis = Timestamp.valueOf("1970-01-01 00:00:00").getTime();
+            Order order = new Order(new Date(millis), null);
+            eraser.intercept(invocationReturning(new ArrayList<>(Collections.singletonList(order))));
+            Assert.assertNull(order.payTime);
+            // 同一时间戳在 UTC 下是 1969-12-31 15:00:00，不再是哨兵值
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            order = new Order(new Date(millis), null);
+            eraser.intercept(invocationReturning(new ArrayList<>(Collections.singletonList(order))));
+            Assert.assertEquals(millis, order.payTime.getTime());
+        } finally {
+            TimeZone.setDefault(timeZone);
+        }
+    }
+
+    @Test
+    public void testInvalidSentinel() {
+        // 编译失败的类型缓存为空计划，不再每次重新编译
+        Assert.assertNull(eraser.planOf(Invalid.class));
+        Assert.assertNull(eraser.planOf(Invalid.class));
+    }
+
+    @Test
+    public void testEraseDefaultTimeOnNonDateField() throws Throwable {
+        Ticket ticket = new Ticket();
+        ticket.payTime = new Date(DEFAULT_DATE.getTime());
+        ticket.amount = 0L;
+        eraser.intercept(invocationReturning(new ArrayList<>(Collections.singletonList(ticket))));
+        Assert.assertNull(ticket.payTime);
+        Assert.assertEquals(Long.valueOf(0L), ticket.amount);
+    }
+
+    private Invocation invocationReturning(Object result) throws NoSuchMethodException {
+        ResultSetHandler handler = new StubResultSetHandler(result);
+        Method method = ResultSetHandler.class.getMethod("handleResultSets", Statement.class);
+        return new Invocation(handler, method, new Object[]{null});
+    }
+
+    @EraseTarget
+    public static class Order {
+        @EraseDefaultTime
+        private Date payTime;
+
+        private Date createTime;
+
+        Order(Date payTime, Date createTime) {
+            this.payTime = payTime;
+            this.createTime = createTime;
+        }
+    }
+
+    @EraseTarget
+    public static class Account {
+        @EraseSentinel
+        private LocalDateTime lastLogin;
+
+        @EraseDefaultTime
+        private Timestamp closedAt;
+
+        @EraseSentinel({"-1", "0"})
+        private Integer level;
+
+        @EraseSentinel
+        private Long score;
+
+        @EraseSentinel
+        private BigDecimal balance;
+
+        @EraseSentinel
+        private String nickname;
+
+        @EraseSentinel({"", "N/A"})
+        private String remark;
+
+        @EraseNested
+        private List<Order> orders;
+
+        @EraseNested
+        private Account self;
+    }
+
+    @EraseTarget
+    public static class Invalid {
+        @EraseSentinel("-1")
+        private int level;
+    }
+
+    @EraseTarget
+    public static class Ticket {
+        @EraseDefaultTime
+        private Date payTime;
+
+        @EraseDefaultTime
+        private Long amount;
+    }
+
+    public static class Plain {
+        @EraseDefaultTime
+        private Date payTime;
+    }
+
+    private static class ListCursor<T> implements Cursor<T> {
+
+        private final List<T> rows;
+
+        private boolean open = true;
+
+        ListCursor(List<T> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return false;
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return -1;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return rows.iterator();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package interceptor;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+
+import java.sql.CallableStatement;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * 返回固定结果集的 ResultSetHandler，用于测试拦截器
+ */
+class StubResultSetHandler implements ResultSetHandler {
+
+    private final Object result;
+
+    StubResultSetHandler(Object result) {
+        this.result = result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E> List<E> handleResultSets(Statement stmt) {
+        return (List<E>) result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E> Cursor<E> handleCursorResultSets(Statement stmt) {
+        return (Cursor<E>) result;
+    }
+
+    @Override
+    public void handleOutputParameters(CallableStatement cs) {
+    }
+}
@@ -0,0 +1,15 @@
+package interceptor.scan;
+
+import annotation.EraseDefaultTime;
+import annotation.EraseTarget;
+
+import java.util.Date;
+
+/**
+ * 用于测试启动时扫描的实体类
+ */
+@EraseTarget
+public class ScannedOrder {
+    @EraseDefaultTime
+    private Date payTime;
+}
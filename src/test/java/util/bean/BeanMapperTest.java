@@ -0,0 +1,184 @@
+package util.bean;
+
+import lombok.Data;
+import lombok.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class BeanMapperTest {
+
+    @Test
+    public void testMap() {
+        LocalDateTime createTime = LocalDateTime.of(2022, 3, 23, 10, 30);
+        Order order = new Order();
+        order.setId(1L);
+        order.setCount(3);
+        order.setStatus(Status.PAID);
+        order.setCreateTime(java.sql.Timestamp.valueOf(createTime));
+        order.setPayTime(createTime);
+        order.setAmount(12);
+        Customer customer = new Customer();
+        customer.setName("cs");
+        order.setCustomer(customer);
+        order.setItems(Arrays.asList(newItem("a"), null, newItem("b")));
+        order.setTags(new ArrayList<>(Arrays.asList("PAID", "NEW")));
+        Map<String, Item> extras = new HashMap<>();
+        extras.put("gift", newItem("c"));
+        order.setExtras(extras);
+
+        OrderDto dto = BeanMapper.map(order, OrderDto.class);
+        Assert.assertEquals(1L, dto.getId());
+        Assert.assertEquals(Integer.valueOf(3), dto.getCount());
+        Assert.assertEquals("PAID", dto.getStatus());
+        Assert.assertEquals(createTime, dto.getCreateTime());
+        Assert.assertEquals(java.sql.Timestamp.valueOf(createTime).getTime(), dto.getPayTime().getTime());
+        Assert.assertEquals(Long.valueOf(12), dto.getAmount());
+        Assert.assertEquals("cs", dto.getCustomer().getName());
+        Assert.assertEquals(3, dto.getItems().size());
+        Assert.assertEquals("a", dto.getItems().get(0).getName());
+        Assert.assertNull(dto.getItems().get(1));
+        Assert.assertEquals("b", dto.getItems().get(2).getName());
+        Assert.assertTrue(dto.getTags().contains(Status.PAID));
+        Assert.assertTrue(dto.getTags().contains(Status.NEW));
+        Assert.assertEquals("c", dto.getExtras().get("gift").getName());
+        // 不同类型且无法转换的属性被跳过
+        Assert.assertNull(dto.getRemark());
+    }
+
+    @Test
+    public void testMapCycle() {
+        Customer customer = new Customer();
+        customer.setName("cs");
+        Order order = new Order();
+        order.setCustomer(customer);
+        customer.setOrders(Collections.singletonList(order));
+        order.setParent(order);
+
+        OrderDto dto = BeanMapper.map(order, OrderDto.class);
+        Assert.assertSame(dto, dto.getParent());
+        Assert.assertSame(dto, dto.getCustomer().getOrders().get(0));
+    }
+
+    @Test
+    public void testMapToDifferentTypes() {
+        Customer customer = new Customer();
+        customer.setName("cs");
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setBuyer(customer);
+
+        OrderDto dto = BeanMapper.map(order, OrderDto.class);
+        Assert.assertEquals("cs", dto.getCustomer().getName());
+        Assert.assertEquals("cs", dto.getBuyer().getName());
+    }
+
+    @Test
+    public void testMapImmutableProperty() {
+        Order order = new Order();
+        order.setPrice(new Money(new BigDecimal("12.50"), "CNY"));
+
+        OrderDto dto = BeanMapper.map(order, OrderDto.class);
+        // 没有无参构造方法的类型不递归复制，直接引用
+        Assert.assertSame(order.getPrice(), dto.getPrice());
+    }
+
+    @Test
+    public void testMapList() {
+        List<Customer> customers = Arrays.asList(new Customer(), null);
+        customers.get(0).setName("cs");
+        List<CustomerDto> dtos = BeanMapper.mapList(customers, CustomerDto.class);
+        Assert.assertEquals("cs", dtos.get(0).getName());
+        Assert.assertNull(dtos.get(1));
+        Assert.assertNull(BeanMapper.map(null, CustomerDto.class));
+    }
+
+    private static Item newItem(String name) {
+        Item item = new Item();
+        item.setName(name);
+        return item;
+    }
+
+    public enum Status {
+        NEW, PAID
+    }
+
+    @Data
+    public static class Order {
+        private Long id;
+        private int count;
+        private Status status;
+        private Date createTime;
+        private LocalDateTime payTime;
+        private Integer amount;
+        private Customer customer;
+        private List<Item> items;
+        private List<String> tags;
+        private Map<String, Item> extras;
+        private Order parent;
+        private Customer buyer;
+        private Money price;
+        private Date remark;
+    }
+
+    @Data
+    public static class OrderDto {
+        private long id;
+        private Integer count;
+        private String status;
+        private LocalDateTime createTime;
+        private Date payTime;
+        private Long amount;
+        private CustomerDto customer;
+        private List<ItemDto> items;
+        private Set<Status> tags;
+        private Map<String, ItemDto> extras;
+        private OrderDto parent;
+        private BuyerDto buyer;
+        private Money price;
+        private List<String> remark;
+    }
+
+    @Data
+    public static class Customer {
+        private String name;
+        private List<Order> orders;
+    }
+
+    @Data
+    public static class CustomerDto {
+        private String name;
+        private List<OrderDto> orders;
+    }
+
+    @Data
+    public static class BuyerDto {
+        private String name;
+    }
+
+    @Value
+    public static class Money {
+        BigDecimal amount;
+        String currency;
+    }
+
+    @Data
+    public static class Item {
+        private String name;
+    }
+
+    @Data
+    public static class ItemDto {
+        private String name;
+    }
+}
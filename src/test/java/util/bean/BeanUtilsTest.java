@@ -0,0 +1,159 @@
+package util.bean;
+
+import lombok.Data;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BeanUtilsTest {
+
+    @Test
+    public void testCopy() {
+        User src = newUser();
+        UserDto target = new UserDto();
+        BeanUtils.copy(src, target);
+        Assert.assertEquals(Long.valueOf(1), target.getId());
+        Assert.assertEquals("cs", target.getName());
+        Assert.assertEquals(Long.valueOf(100), target.getUserId());
+    }
+
+    @Test
+    public void testCopyWithConverter() {
+        User src = newUser();
+        UserDto target = new UserDto();
+        BeanUtils.copy(src, target, (value, type, setter) -> value instanceof String ? "x" + value : value);
+        Assert.assertEquals("xcs", target.getName());
+        Assert.assertEquals(Long.valueOf(1), target.getId());
+    }
+
+    @Test
+    public void testCopyWithFields() {
+        UserDto target = new UserDto();
+        BeanUtils.copyWithFields(newUser(), target, "userId, name");
+        Assert.assertNull(target.getId());
+        Assert.assertNull(target.getAge());
+        Assert.assertEquals("cs", target.getName());
+        Assert.assertEquals(Long.valueOf(100), target.getUserId());
+    }
+
+    @Test
+    public void testCopyWithoutFields() {
+        UserDto target = new UserDto();
+        BeanUtils.copyWithoutFields(newUser(), target, "userId,age");
+        Assert.assertEquals(Long.valueOf(1), target.getId());
+        Assert.assertEquals("cs", target.getName());
+        Assert.assertNull(target.getUserId());
+        Assert.assertNull(target.getAge());
+    }
+
+    @Test
+    public void testCopyWithFieldsAcrossTypes() {
+        // 只复制类型兼容的属性，基本类型不写入 null
+        User src = newUser();
+        src.setAge(null);
+        Summary target = new Summary();
+        target.setAge(7);
+        BeanUtils.copyWithoutFields(src, target, "");
+        Assert.assertEquals(1L, target.getId());
+        Assert.assertEquals(7, target.getAge());
+        Assert.assertNull(target.getName());
+    }
+
+    @Test
+    public void testCopyList() {
+        List<User> users = new ArrayList<>();
+        users.add(newUser());
+        users.add(null);
+        users.add(newUser());
+        List<UserDto> dtos = BeanUtils.copyList(users, UserDto::new);
+        Assert.assertEquals(3, dtos.size());
+        Assert.assertEquals("cs", dtos.get(0).getName());
+        Assert.assertNull(dtos.get(1));
+        Assert.assertEquals(Long.valueOf(100), dtos.get(2).getUserId());
+    }
+
+    @Test
+    public void testCopyListParallel() {
+        List<User> users = new LinkedList<>();
+        for (int i = 0; i < 30000; i++) {
+            User user = newUser();
+            user.setId((long) i);
+            users.add(user);
+        }
+        List<UserDto> dtos = BeanUtils.copyList(users, UserDto::new, true);
+        Assert.assertEquals(users.size(), dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            Assert.assertEquals(Long.valueOf(i), dtos.get(i).getId());
+        }
+    }
+
+    @Test
+    public void testCopyIterator() {
+        List<User> users = new ArrayList<>();
+        users.add(newUser());
+        users.add(newUser());
+        Iterator<UserDto> iterator = BeanUtils.copyIterator(users.iterator(), UserDto::new);
+        Assert.assertEquals("cs", iterator.next().getName());
+        Assert.assertEquals("cs", iterator.next().getName());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testConcurrentCopy() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<UserDto>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(() -> {
+                    UserDto target = new UserDto();
+                    BeanUtils.copy(newUser(), target);
+                    return target;
+                }));
+            }
+            for (Future<UserDto> future : futures) {
+                Assert.assertEquals("cs", future.get().getName());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static User newUser() {
+        User user = new User();
+        user.setId(1L);
+        user.setName("cs");
+        user.setUserId(100L);
+        user.setAge(18);
+        return user;
+    }
+
+    @Data
+    public static class User {
+        private Long id;
+        private String name;
+        private Long userId;
+        private Integer age;
+    }
+
+    @Data
+    public static class UserDto {
+        private Long id;
+        private String name;
+        private Long userId;
+        private Integer age;
+    }
+
+    @Data
+    public static class Summary {
+        private long id;
+        private int age;
+        private Integer name;
+    }
+}
@@ -0,0 +1,273 @@
+package util.json;
+
+import lombok.Data;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JsonUtilsTest {
+
+    @Test
+    public void testToJson() {
+        Order order = newOrder();
+        Assert.assertEquals("{\"amount\":12.50,\"createTime\":1000,\"day\":\"2022-03-23\",\"id\":1,"
+                        + "\"items\":[{\"name\":\"a\\\"b\"},null],\"paid\":true,\"parent\":null,"
+                        + "\"remark\":\"line\\nnext\\u0001\",\"scores\":[1,2],\"status\":\"PAID\","
+                        + "\"tags\":{\"k\":[\"x\"]}}",
+                JsonUtils.toJson(order));
+        Assert.assertEquals("null", JsonUtils.toJson(null));
+        Assert.assertEquals("[1,\"s\",null,2.5]", JsonUtils.toJson(Arrays.asList(1, "s", null, 2.5D)));
+        Assert.assertEquals("\"中文\"", JsonUtils.toJson("中文"));
+    }
+
+    @Test
+    public void testToJsonSinks() throws Exception {
+        Order order = newOrder();
+        order.setRemark("中文😀");
+        String expected = JsonUtils.toJson(order);
+
+        StringWriter writer = new StringWriter();
+        JsonUtils.toJson(order, writer);
+        Assert.assertEquals(expected, writer.toString());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonUtils.toJson(order, out);
+        Assert.assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        JsonUtils.toJson(order, buffer);
+        buffer.flip();
+        Assert.assertEquals(expected, StandardCharsets.UTF_8.decode(buffer).toString());
+    }
+
+    @Test
+    public void testLargeOutput() throws Exception {
+        // 超出缓冲区，且代理对跨越缓冲区边界
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            values.add("值😀" + i);
+        }
+        String json = JsonUtils.toJson(values);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonUtils.toJson(values, out);
+        Assert.assertEquals(json, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertTrue(json.endsWith("\"值😀4999\"]"));
+    }
+
+    @Test(timeout = 10000)
+    public void testLoneSurrogate() throws Exception {
+        for (String value : new String[]{"ab\uD83D", "x\uDC00y"}) {
+            String expected = "\"" + value + "\"";
+            Assert.assertEquals(expected, JsonUtils.toJson(value));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            JsonUtils.toJson(value, out);
+            Assert.assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+
+            ByteBuffer buffer = ByteBuffer.allocate(64);
+            JsonUtils.toJson(value, buffer);
+            buffer.flip();
+            Assert.assertEquals(new String(expected.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8),
+                    StandardCharsets.UTF_8.decode(buffer).toString());
+        }
+    }
+
+    @Test
+    public void testLimits() {
+        Order order = newOrder();
+        Order parent = newOrder();
+        parent.setParent(newOrder());
+        order.setParent(parent);
+        String json = JsonUtils.toJson(order, 2, Long.MAX_VALUE);
+        Assert.assertTrue(json.contains("\"parent\":{\"amount\":12.50"));
+        Assert.assertTrue(json.contains("\"parent\":\"...\""));
+        String truncated = JsonUtils.toJson(order, 64, 20);
+        Assert.assertEquals("{\"amount\":12.50,...", truncated);
+    }
+
+    @Test
+    public void testCycle() {
+        // 两个节点互相引用，每个节点有两条边指回另一个，只靠层数限制输出会随层数指数增长
+        Node first = new Node();
+        Node second = new Node();
+        first.setName("first");
+        second.setName("second");
+        first.setPrev(second);
+        first.setNext(second);
+        second.setPrev(first);
+        second.setNext(first);
+        Assert.assertEquals("{\"name\":\"first\",\"next\":{\"name\":\"second\",\"next\":\"<cycle>\","
+                        + "\"prev\":\"<cycle>\"},\"prev\":{\"name\":\"second\",\"next\":\"<cycle>\","
+                        + "\"prev\":\"<cycle>\"}}",
+                JsonUtils.toJson(first));
+
+        List<Object> list = new ArrayList<>();
+        Map<String, Object> map = new LinkedHashMap<>();
+        list.add(map);
+        map.put("list", list);
+        Object[] array = {list, map};
+        Assert.assertEquals("[[{\"list\":\"<cycle>\"}],{\"list\":[\"<cycle>\"]}]", JsonUtils.toJson(array));
+    }
+
+    @Test
+    public void testFromJson() {
+        Order order = newOrder();
+        order.setRemark("中文😀\u2028");
+        Assert.assertEquals(order, JsonUtils.fromJson(JsonUtils.toJson(order), Order.class));
+
+        Order parsed = JsonUtils.fromJson("{\"unknown\":{\"a\":[1,{\"b\":null}]},\"id\":2,\"paid\":null,"
+                + "\"remark\":\"\\u4e2d\\t\\\"\",\"parent\":{\"id\":3}}", Order.class);
+        Assert.assertEquals(Long.valueOf(2), parsed.getId());
+        Assert.assertEquals("中\t\"", parsed.getRemark());
+        Assert.assertEquals(Long.valueOf(3), parsed.getParent().getId());
+
+        Object natural = JsonUtils.fromJson("{\"a\":[1,2.5,12345678901234567890,\"s\",true,null]}", Object.class);
+        Assert.assertEquals(Arrays.asList(1L, new BigDecimal("2.5"), new BigDecimal("12345678901234567890"),
+                "s", true, null), ((Map<?, ?>) natural).get("a"));
+        Assert.assertNull(JsonUtils.fromJson(" null ", Order.class));
+
+        for (String malformed : new String[]{"{\"id\":1", "{\"id\":1,}", "{\"id\":-}", "{\"id\":1} 2", "[1 2]"}) {
+            try {
+                JsonUtils.fromJson(malformed, Object.class);
+                Assert.fail(malformed);
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage().contains("at offset"));
+            }
+        }
+
+        StringBuilder nested = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            nested.append('[');
+        }
+        try {
+            JsonUtils.fromJson(nested.toString(), Object.class);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("nesting deeper than"));
+        }
+        StringBuilder deepest = new StringBuilder();
+        for (int i = 0; i < JsonUtils.DEFAULT_MAX_DEPTH; i++) {
+            deepest.insert(0, '[').append(']');
+        }
+        Assert.assertNotNull(JsonUtils.fromJson(deepest.toString(), Object.class));
+        try {
+            JsonUtils.fromJson("[" + deepest + "]", Object.class);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("nesting deeper than"));
+        }
+
+        Assert.assertEquals(Short.valueOf((short) -32768), JsonUtils.fromJson("-32768", Short.class));
+        Assert.assertEquals(Byte.valueOf((byte) 127), JsonUtils.fromJson("127", byte.class));
+        Class<?>[] types = {Short.class, short.class, Byte.class, byte.class};
+        String[] overflows = {"70000", "-32769", "128", "-129"};
+        for (int i = 0; i < types.length; i++) {
+            try {
+                JsonUtils.fromJson(overflows[i], types[i]);
+                Assert.fail(overflows[i]);
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage().contains("overflow"));
+            }
+        }
+    }
+
+    @Test
+    public void testFromJsonSources() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Item item = new Item();
+            item.setName("值😀" + i);
+            items.add(item);
+        }
+        Order order = newOrder();
+        order.setItems(items);
+        byte[] json = JsonUtils.toJson(order).getBytes(StandardCharsets.UTF_8);
+
+        // 超出输入流的读取缓冲区，多字节字符跨越缓冲区边界
+        Assert.assertEquals(order, JsonUtils.fromJson(new ByteArrayInputStream(json), Order.class));
+        ByteBuffer heap = ByteBuffer.wrap(json);
+        Assert.assertEquals(order, JsonUtils.fromJson(heap, Order.class));
+        Assert.assertFalse(heap.hasRemaining());
+        ByteBuffer direct = ByteBuffer.allocateDirect(json.length);
+        direct.put(json).flip();
+        Assert.assertEquals(order, JsonUtils.fromJson(direct, Order.class));
+    }
+
+    @Test
+    public void testIterateArray() throws Exception {
+        byte[] json = "[{\"name\":\"a\"}, null ,{\"name\":\"b\",\"extra\":[]}]".getBytes(StandardCharsets.UTF_8);
+        List<String> names = new ArrayList<>();
+        try (JsonArrayIterator<Item> iterator = JsonUtils.iterateArray(new ByteArrayInputStream(json), Item.class)) {
+            while (iterator.hasNext()) {
+                Item item = iterator.next();
+                names.add(null == item ? null : item.getName());
+            }
+        }
+        Assert.assertEquals(Arrays.asList("a", null, "b"), names);
+        Assert.assertFalse(JsonUtils.iterateArray("[]".getBytes(StandardCharsets.UTF_8), Item.class).hasNext());
+    }
+
+    private static Order newOrder() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setAmount(new BigDecimal("12.50"));
+        order.setCreateTime(new Date(1000));
+        order.setDay(LocalDate.of(2022, 3, 23));
+        order.setPaid(true);
+        order.setStatus(Status.PAID);
+        order.setRemark("line\nnext\u0001");
+        order.setScores(new int[]{1, 2});
+        Item item = new Item();
+        item.setName("a\"b");
+        order.setItems(Arrays.asList(item, null));
+        Map<String, List<String>> tags = new LinkedHashMap<>();
+        tags.put("k", Arrays.asList("x"));
+        order.setTags(tags);
+        return order;
+    }
+
+    public enum Status {
+        PAID
+    }
+
+    @Data
+    public static class Order {
+        private Long id;
+        private BigDecimal amount;
+        private Date createTime;
+        private LocalDate day;
+        private boolean paid;
+        private Status status;
+        private String remark;
+        private int[] scores;
+        private List<Item> items;
+        private Map<String, List<String>> tags;
+        private Order parent;
+    }
+
+    @Data
+    public static class Node {
+        private String name;
+        private Node prev;
+        private Node next;
+    }
+
+    @Data
+    public static class Item {
+        private String name;
+    }
+}